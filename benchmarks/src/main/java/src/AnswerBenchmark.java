@@ -0,0 +1,64 @@
+package src;
+
+import javafx.scene.control.Button;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Answering questions in the running app. playQuiz plays whole quizzes through
+// startQuiz, checkAnswer and nextQuestion to endQuiz and is reported per answer; it
+// moves on straight away where the app waits 1.5 s to show the result. Answers
+// alternate right and wrong so both feedback paths run.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnswerBenchmark {
+
+    private BenchmarkApp running;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        running = BenchmarkApp.start();
+        // Builds the quiz screen, so getSelectedOption has buttons to look through
+        BenchmarkApp.onFxThread(() -> {
+            running.app.startQuiz();
+            return null;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        running.stop();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QuizSession.QUIZ_SIZE)
+    public int playQuiz() throws Exception {
+        BibleQuizApp app = running.app;
+        return BenchmarkApp.onFxThread(() -> {
+            app.startQuiz();
+            int answered = 0;
+            while (!app.session.isFinished()) {
+                int correct = app.session.currentQuestion().answerIndex();
+                app.checkAnswer(app.optionButtons[answered % 2 == 0 ? correct : (correct + 1) % 4]);
+                // What the pause after an answer runs once it finishes
+                app.session.nextQuestion();
+                app.nextQuestion();
+                answered++;
+            }
+            return answered;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void getSelectedOption(Blackhole blackhole) {
+        for (Button button : running.app.optionButtons) {
+            blackhole.consume(running.app.getSelectedOption(button));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package src;
+
+import javafx.application.Platform;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+
+// Runs the real BibleQuizApp on Monocle's headless glass platform: no display, software
+// rendering, and its stores in a temporary directory. Benchmarks call into it only
+// on the FX thread, through onFxThread.
+final class BenchmarkApp {
+
+    private static boolean toolkitStarted;
+
+    final BibleQuizApp app;
+    private final Path dataDir;
+
+    private BenchmarkApp(BibleQuizApp app, Path dataDir) {
+        this.app = app;
+        this.dataDir = dataDir;
+    }
+
+    // Starts the app and waits for the bundled bank to finish loading.
+    static BenchmarkApp start() throws Exception {
+        Path dataDir = Files.createTempDirectory("quiz-bench");
+        System.setProperty("biblequiz.data", dataDir.toString());
+        startToolkit();
+        BibleQuizApp app = onFxThread(() -> {
+            BibleQuizApp started = new BibleQuizApp();
+            started.start(new Stage());
+            return started;
+        });
+        while (app.bank == null) {
+            Thread.sleep(10);
+        }
+        return new BenchmarkApp(app, dataDir);
+    }
+
+    private static synchronized void startToolkit() throws InterruptedException {
+        if (toolkitStarted) {
+            return;
+        }
+        System.setProperty("glass.platform", "Monocle");
+        System.setProperty("monocle.platform", "Headless");
+        System.setProperty("prism.order", "sw");
+        CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        Platform.setImplicitExit(false);
+        toolkitStarted = true;
+    }
+
+    static <T> T onFxThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Platform.runLater(future);
+        return future.get();
+    }
+
+    void stop() throws Exception {
+        onFxThread(() -> {
+            app.stop();
+            return null;
+        });
+        deleteRecursively(dataDir);
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package src;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic question banks for the benchmarks, written in the questions.json layout.
+// Question text is unique while options and metadata repeat the way a real bank's
+// do, so the columnar store's dictionaries see a realistic mix. Files are kept in
+// the temp directory and shared by every fork, since a million questions take a
+// while to write.
+final class BenchmarkBanks {
+
+    private static final String[] BOOKS = {"Genesis", "Exodus", "Judges", "Ruth", "Samuel", "Kings", "Psalms",
+            "Proverbs", "Isaiah", "Daniel", "Jonah", "Matthew", "Mark", "Luke", "John", "Acts", "Romans", "Revelation"};
+    private static final int NEW_TESTAMENT = 11; // index of Matthew
+    private static final String[] NAMES = {"Moses", "Abraham", "David", "Solomon", "Elijah", "Peter", "Paul", "Mary",
+            "Ruth", "Esther", "Daniel", "Joseph", "Noah", "Isaac", "Jacob", "Samuel", "Gideon", "Deborah", "Jonah",
+            "Timothy", "Barnabas", "Stephen", "Lydia", "Martha"};
+    private static final String[] DIFFICULTIES = {"easy", "medium", "hard"};
+
+    private BenchmarkBanks() {
+    }
+
+    static List<Question> questions(int size) {
+        Random random = new Random(size);
+        List<Question> questions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Question q = new Question();
+            int b = random.nextInt(BOOKS.length);
+            String book = BOOKS[b];
+            q.question = "Question " + i + ": who is named in " + book + " chapter " + (1 + random.nextInt(50))
+                    + " beside " + NAMES[random.nextInt(NAMES.length)] + "?";
+            // Four different names, as the loader rejects repeated options
+            int first = random.nextInt(NAMES.length);
+            q.option_a = NAMES[first];
+            q.option_b = NAMES[(first + 5) % NAMES.length];
+            q.option_c = NAMES[(first + 10) % NAMES.length];
+            q.option_d = NAMES[(first + 15) % NAMES.length];
+            q.answer = Question.ANSWER_KEYS[random.nextInt(4)];
+            q.testament = b < NEW_TESTAMENT ? "old" : "new";
+            q.book = book;
+            q.difficulty = DIFFICULTIES[random.nextInt(DIFFICULTIES.length)];
+            questions.add(q);
+        }
+        return questions;
+    }
+
+    // The bank of the given size as a JSON file, written on first use.
+    static Path file(int size) throws IOException {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "bible-quiz-bench");
+        Path file = dir.resolve("questions-" + size + ".json");
+        if (!Files.isRegularFile(file)) {
+            Files.createDirectories(dir);
+            Path temp = Files.createTempFile(dir, "questions-" + size, ".tmp");
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                QuestionBankWriter.write(questions(size), out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    // Loaded the way the app loads its bank.
+    static QuestionBankSnapshot snapshot(int size) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file(size), StandardCharsets.UTF_8)) {
+            return QuestionBankSnapshot.of("bench-" + size, QuestionLoader.loadColumnar(reader, error -> {
+                throw new IllegalStateException("Invalid generated question " + error);
+            }).asList());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package src;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Compares two JMH result files (-rf json) benchmark by benchmark: the score and,
+// when the run used -prof gc, the bytes allocated per operation.
+//
+//   java -cp benchmarks.jar src.BenchmarkComparison <before.json> <after.json>
+public class BenchmarkComparison {
+
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkComparison <before.json> <after.json>");
+            System.exit(2);
+        }
+        Map<String, JsonObject> before = read(args[0]);
+        Map<String, JsonObject> after = read(args[1]);
+        System.out.printf("%-60s %24s %12s %28s%n", "benchmark", "score", "change", "allocated B/op");
+        for (Map.Entry<String, JsonObject> entry : after.entrySet()) {
+            JsonObject old = before.get(entry.getKey());
+            if (old == null) {
+                continue;
+            }
+            JsonObject now = entry.getValue();
+            double oldScore = score(old.getAsJsonObject("primaryMetric"));
+            double newScore = score(now.getAsJsonObject("primaryMetric"));
+            String unit = now.getAsJsonObject("primaryMetric").get("scoreUnit").getAsString();
+            double oldAllocated = allocation(old);
+            double newAllocated = allocation(now);
+            System.out.printf("%-60s %10.3f -> %10.3f %+11.1f%% %28s  %s%n", entry.getKey(), oldScore, newScore,
+                    change(oldScore, newScore),
+                    oldAllocated < 0 || newAllocated < 0 ? "" : String.format("%.0f -> %.0f", oldAllocated, newAllocated),
+                    unit);
+        }
+    }
+
+    // Results keyed by benchmark name plus its parameters, e.g. QuizSelectionBenchmark.randomQuiz size=1000.
+    private static Map<String, JsonObject> read(String file) throws IOException {
+        JsonArray results;
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            results = new Gson().fromJson(reader, JsonArray.class);
+        }
+        Map<String, JsonObject> byName = new LinkedHashMap<>();
+        for (JsonElement element : results) {
+            JsonObject result = element.getAsJsonObject();
+            String name = result.get("benchmark").getAsString();
+            name = name.substring(name.lastIndexOf('.', name.lastIndexOf('.') - 1) + 1);
+            StringBuilder key = new StringBuilder(name);
+            JsonObject params = result.getAsJsonObject("params");
+            if (params != null) {
+                for (Map.Entry<String, JsonElement> param : params.entrySet()) {
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().getAsString());
+                }
+            }
+            byName.put(key.toString(), result);
+        }
+        return byName;
+    }
+
+    private static double score(JsonObject metric) {
+        return metric.get("score").getAsDouble();
+    }
+
+    private static double allocation(JsonObject result) {
+        JsonObject secondary = result.getAsJsonObject("secondaryMetrics");
+        return secondary != null && secondary.has(ALLOCATION) ? score(secondary.getAsJsonObject(ALLOCATION)) : -1;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
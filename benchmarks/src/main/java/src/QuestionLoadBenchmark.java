@@ -0,0 +1,92 @@
+package src;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parsing a bank: QuestionLoader.loadQuestions into Question objects, and the
+// dictionary-encoded load BibleQuizApp.loadQuestions uses, at 1k to 1M questions.
+// bundledBank runs the app's own loadQuestions on the bank shipped in the jar.
+// Setup first checks that records with null or missing fields are reported and
+// skipped rather than failing the whole load.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class QuestionLoadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Bank {
+        @Param({"1000", "100000", "1000000"})
+        int size;
+
+        Path file;
+
+        @Setup(Level.Trial)
+        public void write() throws IOException {
+            checkInvalidRecordsSkipped();
+            file = BenchmarkBanks.file(size);
+        }
+    }
+
+    private static final String INVALID_RECORDS = "["
+            + "{\"question\": \"Who built the ark?\", \"option_a\": \"Noah\", \"option_b\": \"Moses\","
+            + " \"option_c\": \"David\", \"option_d\": \"Paul\", \"answer\": \"option_a\"},"
+            + "{\"question\": \"No option_d\", \"option_a\": \"Noah\", \"option_b\": \"Moses\","
+            + " \"option_c\": \"David\", \"answer\": \"option_a\"},"
+            + "{\"question\": \"Null option_a\", \"option_a\": null, \"option_b\": \"Moses\","
+            + " \"option_c\": \"David\", \"option_d\": \"Paul\", \"answer\": \"option_b\"},"
+            + "{\"question\": null, \"option_a\": \"Noah\", \"option_b\": \"Moses\","
+            + " \"option_c\": \"David\", \"option_d\": \"Paul\", \"answer\": null}"
+            + "]";
+
+    static void checkInvalidRecordsSkipped() throws IOException {
+        List<QuestionRecordError> errors = new ArrayList<>();
+        ColumnarQuestionStore store = QuestionLoader.loadColumnar(new StringReader(INVALID_RECORDS), errors::add);
+        if (store.size() != 1 || errors.size() != 3) {
+            throw new IllegalStateException("Loaded " + store.size() + " questions with " + errors.size()
+                    + " errors from a bank with 1 valid and 3 invalid records: " + errors);
+        }
+        List<Question> questions = new ArrayList<>();
+        try (QuestionStreamReader records = new QuestionStreamReader(new StringReader(INVALID_RECORDS), false, error -> {})) {
+            while (records.hasNext()) {
+                questions.add(records.next());
+            }
+        }
+        long failing = BankValidator.validate(questions).stream()
+                .filter(v -> v.severity == BankViolation.Severity.ERROR).map(v -> v.record).distinct().count();
+        if (failing != 3) {
+            throw new IllegalStateException("Validator flagged " + failing + " of 3 invalid records");
+        }
+    }
+
+    @Benchmark
+    public List<Question> loadQuestions(Bank bank) throws IOException {
+        try (Reader reader = Files.newBufferedReader(bank.file, StandardCharsets.UTF_8)) {
+            return QuestionLoader.loadQuestions(reader, error -> {});
+        }
+    }
+
+    @Benchmark
+    public ColumnarQuestionStore loadColumnar(Bank bank) throws IOException {
+        try (Reader reader = Files.newBufferedReader(bank.file, StandardCharsets.UTF_8)) {
+            return QuestionLoader.loadColumnar(reader, error -> {});
+        }
+    }
+
+    @Benchmark
+    public QuestionBankSnapshot bundledBank() throws IOException {
+        BibleQuizApp app = new BibleQuizApp();
+        app.loadQuestions();
+        return app.bank;
+    }
+}
@@ -0,0 +1,107 @@
+package src;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Host mode fan-out: how long QuizRoomServer takes from openQuestion until every one
+// of N loopback clients has read the question line. Each invocation also reveals
+// the previous question, so the answer, per-player result and leaderboard messages
+// go out too, as they do between two questions of a real room.
+//
+// Setup checks the room first: every client gets byte-for-byte the same question
+// line, an answer to a question the connection was never sent does not count, and
+// an answer to the open one does. The server and the clients share one process, so
+// 10000 clients need an open-file limit (ulimit -n) above 20k.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QuizRoomBenchmark {
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @Param({"1000", "10000"})
+    int clients;
+
+    private final List<Question> questions = BenchmarkBanks.questions(QuizSession.QUIZ_SIZE);
+    private QuizRoomServer room;
+    private QuizRoomClients participants;
+    private int number;
+
+    @Setup(Level.Trial)
+    public void open() throws IOException {
+        room = new QuizRoomServer();
+        room.start(0);
+        participants = new QuizRoomClients(room.getPort(), clients);
+        for (int i = 0; i < clients; i++) {
+            participants.send(i, "JOIN player-" + i);
+        }
+        participants.await(line -> line.startsWith("{\"type\":\"joined\""), TIMEOUT_MILLIS);
+        checkRoom();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        participants.close();
+        room.stop();
+    }
+
+    @Benchmark
+    public String[] broadcastQuestion() throws IOException {
+        return openQuestion(60);
+    }
+
+    private String[] openQuestion(int seconds) throws IOException {
+        number++;
+        room.openQuestion(number, Integer.MAX_VALUE, question(number), seconds);
+        String prefix = "{\"type\":\"question\",\"number\":" + number + ",";
+        return participants.await(line -> line.startsWith(prefix), TIMEOUT_MILLIS);
+    }
+
+    private Question question(int number) {
+        return questions.get(number % questions.size());
+    }
+
+    // Client 0 answers the question after the open one, before it is sent; client 1
+    // answers the open one correctly.
+    private void checkRoom() throws IOException {
+        String[] lines = openQuestion(1);
+        for (int i = 1; i < lines.length; i++) {
+            if (!lines[i].equals(lines[0])) {
+                throw new IllegalStateException("Client " + i + " got " + lines[i] + " instead of " + lines[0]);
+            }
+        }
+        participants.send(0, "ANSWER " + (number + 1) + " " + question(number + 1).answerIndex());
+        participants.send(1, "ANSWER " + number + " " + question(number).answerIndex());
+        JsonObject[] results = awaitResults();
+        expect(results[0], false, "an answer to a question it was never sent");
+        expect(results[1], true, "the right answer to the open question");
+
+        openQuestion(1);
+        expect(awaitResults()[0], false, "an answer sent before the question was");
+    }
+
+    private JsonObject[] awaitResults() throws IOException {
+        String prefix = "{\"type\":\"result\",\"number\":" + number + ",";
+        String[] lines = participants.await(line -> line.startsWith(prefix), TIMEOUT_MILLIS);
+        JsonObject[] results = new JsonObject[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            results[i] = JsonParser.parseString(lines[i]).getAsJsonObject();
+        }
+        return results;
+    }
+
+    private static void expect(JsonObject result, boolean counted, String answer) {
+        boolean answered = result.get("answered").getAsBoolean();
+        if (answered != counted || (counted && !result.get("correct").getAsBoolean())) {
+            throw new IllegalStateException("Room " + (counted ? "rejected " : "counted ") + answer + ": " + result);
+        }
+    }
+}
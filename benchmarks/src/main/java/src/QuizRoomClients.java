@@ -0,0 +1,108 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+// Loopback participants for a QuizRoomServer: count sockets read by one selector,
+// the way a room full of phones would look to it. Every line a client receives is
+// read, so none of them is ever the slow client the room disconnects.
+final class QuizRoomClients implements Closeable {
+
+    private final SocketChannel[] channels;
+    private final ByteBuffer[] in;
+    private final Selector selector;
+    // Per client, the first line matching the current await()
+    private String[] matched;
+    private Predicate<String> match;
+
+    QuizRoomClients(int port, int count) throws IOException {
+        channels = new SocketChannel[count];
+        in = new ByteBuffer[count];
+        selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", port);
+        for (int i = 0; i < count; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, i);
+            channels[i] = channel;
+            in[i] = ByteBuffer.allocate(1 << 16);
+        }
+    }
+
+    int size() {
+        return channels.length;
+    }
+
+    void send(int client, String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channels[client].write(bytes);
+        }
+    }
+
+    // Reads until every client has received a line matching match, and returns those
+    // lines by client. Lines that do not match are dropped.
+    String[] await(Predicate<String> match, long timeoutMillis) throws IOException {
+        this.match = match;
+        matched = new String[channels.length];
+        int remaining = channels.length;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (remaining > 0) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) {
+                throw new IllegalStateException(remaining + " of " + channels.length
+                        + " clients did not receive the expected line in " + timeoutMillis + " ms");
+            }
+            selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(left)));
+            for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                SelectionKey key = it.next();
+                it.remove();
+                remaining -= read((Integer) key.attachment());
+            }
+        }
+        return matched;
+    }
+
+    // Returns 1 when this read gave the client its first matching line.
+    private int read(int client) throws IOException {
+        ByteBuffer buffer = in[client];
+        if (channels[client].read(buffer) < 0) {
+            throw new IllegalStateException("The room closed client " + client);
+        }
+        buffer.flip();
+        int found = 0;
+        int lineStart = 0;
+        for (int i = 0; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                String line = new String(buffer.array(), lineStart, i - lineStart, StandardCharsets.UTF_8);
+                lineStart = i + 1;
+                if (matched[client] == null && match.test(line)) {
+                    matched[client] = line;
+                    found = 1;
+                }
+            }
+        }
+        buffer.position(lineStart);
+        buffer.compact();
+        return found;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (SocketChannel channel : channels) {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        selector.close();
+    }
+}
@@ -0,0 +1,95 @@
+package src;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Choosing the questions for one quiz, as BibleQuizApp.startQuiz does, over banks of
+// different sizes. The adaptive quiz picks each question only once the previous one
+// is answered, so it plays the whole quiz; answers alternate right and wrong so the
+// player's ability stays put from one quiz to the next.
+//
+// dominantClusterQuiz draws from a bank where all but one in fifteen questions are
+// near duplicates of each other, the shape NearDuplicateDetector's union-find can
+// produce. The sampler then rejects far more positions than it keeps; setup fails
+// if such a draw comes back short or with two members of the cluster.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class QuizSelectionBenchmark {
+
+    private static final String PLAYER = "bench";
+
+    @Param({"1000", "100000", "1000000"})
+    int size;
+
+    private QuestionBankSnapshot bank;
+    private DuplicateClusters dominant;
+    private Path dataDir;
+    private SeenQuestionStore seenQuestions;
+    private final PlayerAbilities abilities = new PlayerAbilities();
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        bank = BenchmarkBanks.snapshot(size);
+        dataDir = Files.createTempDirectory("quiz-bench");
+        seenQuestions = new SeenQuestionStore(dataDir.resolve("seen"), 16);
+
+        int[] members = new int[size - size / 15];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = i;
+        }
+        dominant = new DuplicateClusters(size, List.of(new DuplicateClusters.Cluster(0, members, 1)));
+        for (long s = 0; s < 100; s++) {
+            int clustered = 0;
+            int[] quiz = new QuizSampler(s).avoiding(dominant).sample(size, QuizSession.QUIZ_SIZE);
+            for (int index : quiz) {
+                clustered += dominant.clusterOf(index) == 0 ? 1 : 0;
+            }
+            if (quiz.length != QuizSession.QUIZ_SIZE || clustered > 1) {
+                throw new IllegalStateException("Seed " + s + " drew " + quiz.length + " questions, "
+                        + clustered + " from the dominant cluster");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        bank.close();
+        BenchmarkApp.deleteRecursively(dataDir);
+    }
+
+    @Benchmark
+    public QuizSession randomQuiz() {
+        QuizSampler sampler = new QuizSampler(seed++).avoiding(bank.getDuplicates());
+        return QuizSession.startForPlayer(UUID.randomUUID().toString(), bank.getQuestions(), sampler,
+                seenQuestions, PLAYER);
+    }
+
+    @Benchmark
+    public QuizSession adaptiveQuiz() {
+        QuizSampler sampler = new QuizSampler(seed++).avoiding(bank.getDuplicates());
+        QuizSession session = QuizSession.startAdaptive(UUID.randomUUID().toString(), bank.getQuestions(), sampler,
+                bank.getDifficulty(), bank.getDuplicates(), abilities, seenQuestions, PLAYER);
+        while (!session.isFinished()) {
+            int correct = session.currentQuestion().answerIndex();
+            session.answer(session.getCurrentQuestionIndex() % 2 == 0 ? correct : (correct + 1) % 4, System.nanoTime());
+            session.nextQuestion();
+        }
+        return session;
+    }
+
+    @Benchmark
+    public int[] dominantClusterQuiz() {
+        return new QuizSampler(seed++).avoiding(dominant).sample(size, QuizSession.QUIZ_SIZE);
+    }
+}
@@ -0,0 +1,75 @@
+package src;
+
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Building the quiz screen and the results screen endQuiz shows, on the FX thread
+// of the headless app. The app builds each once and rebinds it afterwards, so this
+// is the cost of the first quiz and first results; quizScreenStyled adds the CSS
+// and layout pass the screen gets when it is first put on the stage.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScreenBenchmark {
+
+    private BenchmarkApp running;
+    private final Theme theme = Theme.fromSystemProperty();
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        running = BenchmarkApp.start();
+        // A finished quiz for the results screen to show, without starting the quiz clock
+        QuizSession session = QuizSession.start(UUID.randomUUID().toString(), running.app.bank.getQuestions(),
+                new QuizSampler(1));
+        while (!session.isFinished()) {
+            session.answer(session.currentQuestion().answerIndex());
+            session.nextQuestion();
+        }
+        running.app.session = session;
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        running.stop();
+    }
+
+    @Benchmark
+    public Object quizScreen() throws Exception {
+        return BenchmarkApp.onFxThread(() -> {
+            running.app.createQuizScreen();
+            return running.app.optionButtons[0];
+        });
+    }
+
+    @Benchmark
+    public Object quizScreenStyled() throws Exception {
+        return BenchmarkApp.onFxThread(() -> {
+            running.app.createQuizScreen();
+            Parent root = running.app.optionButtons[0].getParent();
+            while (root.getParent() != null) {
+                root = root.getParent();
+            }
+            Scene scene = new Scene(root, 800, 700);
+            theme.apply(scene);
+            root.applyCss();
+            root.layout();
+            return scene;
+        });
+    }
+
+    @Benchmark
+    public Object scoreScreen() throws Exception {
+        return BenchmarkApp.onFxThread(() -> {
+            running.app.createScoreScreen();
+            running.app.bindScoreScreen();
+            return running.app;
+        });
+    }
+}
@@ -0,0 +1,419 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only log of answer events. Callers only enqueue: a single writer thread
+// drains everything queued into one buffer, writes it and forces it to disk once,
+// so under load many events share one fsync (group commit). If the queue is full
+// the event is dropped and counted rather than blocking the game.
+//
+// The log is a directory of segments, answers-<sequence>.log, each starting with
+// MAGIC and VERSION and rolled over at a size limit. Every record is
+//
+//   int length, int crc32c(payload), payload:
+//   long timestampMillis, long latencyNanos, int question, byte option,
+//   byte outcome, ubyte sessionLength, session id (UTF-8)
+//
+// After a crash the tail of the last segment may be torn; opening the log
+// truncates it at the first record whose length or checksum does not match.
+//
+//   java src.AnswerEventLog <log dir>   -> verifies the log and prints a summary
+public final class AnswerEventLog implements Closeable {
+
+    public static final byte WRONG = 0;
+    public static final byte CORRECT = 1;
+    public static final byte TIMEOUT = 2;
+
+    public static final int MAGIC = 0x42514145; // "BQAE"
+    public static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 8 + 8 + 4 + 1 + 1 + 1;
+    private static final int MAX_SESSION_BYTES = 255;
+    private static final int MAX_RECORD_SIZE = RECORD_HEADER_SIZE + FIXED_PAYLOAD_SIZE + MAX_SESSION_BYTES;
+    private static final int BATCH_BYTES = 1 << 20;
+    // Caps a group commit, so a steady stream of events still gets forced regularly
+    private static final int MAX_BATCH_EVENTS = 1 << 16;
+    // How often flush() checks on the writer while it waits
+    private static final long FLUSH_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final int capacity;
+    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicBoolean writerParked = new AtomicBoolean();
+    private final Thread writer;
+    private volatile long durable;
+    private volatile long batches;
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    // Owned by the writer thread after construction
+    private FileChannel segment;
+    private long segmentSequence;
+    private long segmentPosition;
+
+    public static class Event {
+        public final String sessionId;
+        public final int question;
+        public final byte option;
+        public final byte outcome;
+        public final long latencyNanos;
+        public final long timestampMillis;
+
+        public Event(String sessionId, int question, int option, byte outcome, long latencyNanos, long timestampMillis) {
+            this.sessionId = sessionId;
+            this.question = question;
+            this.option = (byte) option;
+            this.outcome = outcome;
+            this.latencyNanos = latencyNanos;
+            this.timestampMillis = timestampMillis;
+        }
+
+        @Override
+        public String toString() {
+            return timestampMillis + " " + sessionId + " q" + question + " option " + option
+                    + " " + outcomeName(outcome) + " " + latencyNanos / 1_000_000 + " ms";
+        }
+    }
+
+    public AnswerEventLog(Path dir) throws IOException {
+        this(dir, DEFAULT_SEGMENT_BYTES, DEFAULT_CAPACITY);
+    }
+
+    public AnswerEventLog(Path dir, long segmentBytes, int capacity) throws IOException {
+        if (segmentBytes < SEGMENT_HEADER_SIZE + MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentBytes);
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.capacity = capacity;
+        Files.createDirectories(dir);
+        recover();
+        this.writer = new Thread(this::run, "answer-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Never blocks; returns false if the event was dropped because the writer is
+    // too far behind or the log is closed.
+    public boolean append(Event event) {
+        if (closed || failure != null || queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.offer(event);
+        appended.incrementAndGet();
+        if (writerParked.get() && writerParked.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    public boolean append(String sessionId, int question, int option, byte outcome, long latencyNanos) {
+        return append(new Event(sessionId, question, option, outcome, latencyNanos, System.currentTimeMillis()));
+    }
+
+    // Waits until every event appended before the call is on disk.
+    public void flush() throws IOException {
+        long target = appended.get();
+        while (durable < target) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (!writer.isAlive()) {
+                throw new IOException("Answer log writer has stopped");
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FLUSH_POLL_NANOS);
+        }
+    }
+
+    public long getAppended() {
+        return appended.get();
+    }
+
+    public long getDurable() {
+        return durable;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void run() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_BYTES);
+        CRC32C crc = new CRC32C();
+        try {
+            while (true) {
+                Event event = queue.poll();
+                if (event == null) {
+                    if (closed && queue.isEmpty()) {
+                        break;
+                    }
+                    writerParked.set(true);
+                    // Re-check so an append that saw the flag unset is not missed; append,
+                    // flush and close all unpark, so an idle writer sleeps until needed
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.park(this);
+                    }
+                    writerParked.set(false);
+                    continue;
+                }
+                long count = 0;
+                do {
+                    queued.decrementAndGet();
+                    if (batch.remaining() < MAX_RECORD_SIZE) {
+                        writeBatch(batch);
+                    }
+                    encode(event, batch, crc);
+                    count++;
+                } while (count < MAX_BATCH_EVENTS && (event = queue.poll()) != null);
+                writeBatch(batch);
+                segment.force(false);
+                batches++;
+                durable += count;
+            }
+            segment.force(false);
+            segment.close();
+        } catch (IOException e) {
+            failure = e;
+            System.err.println("Answer log stopped: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void encode(Event event, ByteBuffer batch, CRC32C crc) throws IOException {
+        byte[] session = event.sessionId.getBytes(StandardCharsets.UTF_8);
+        int sessionLength = Math.min(session.length, MAX_SESSION_BYTES);
+        int length = FIXED_PAYLOAD_SIZE + sessionLength;
+        if (segmentPosition + batch.position() + RECORD_HEADER_SIZE + length > segmentBytes) {
+            writeBatch(batch);
+            rollOver();
+        }
+
+        int start = batch.position();
+        batch.putInt(length).putInt(0);
+        batch.putLong(event.timestampMillis)
+                .putLong(event.latencyNanos)
+                .putInt(event.question)
+                .put(event.option)
+                .put(event.outcome)
+                .put((byte) sessionLength)
+                .put(session, 0, sessionLength);
+        int end = batch.position();
+
+        // Checksum the payload in place, without a slice
+        crc.reset();
+        batch.limit(end).position(start + RECORD_HEADER_SIZE);
+        crc.update(batch);
+        batch.limit(batch.capacity());
+        batch.putInt(start + 4, (int) crc.getValue());
+    }
+
+    private void writeBatch(ByteBuffer batch) throws IOException {
+        batch.flip();
+        while (batch.hasRemaining()) {
+            segmentPosition += segment.write(batch, segmentPosition);
+        }
+        batch.clear();
+    }
+
+    private void rollOver() throws IOException {
+        segment.force(false);
+        segment.close();
+        openSegment(segmentSequence + 1);
+    }
+
+    private void openSegment(long sequence) throws IOException {
+        segmentSequence = sequence;
+        segment = FileChannel.open(segmentPath(dir, sequence),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+        segment.write(header, 0);
+        segmentPosition = SEGMENT_HEADER_SIZE;
+    }
+
+    // Reopens the newest segment after its last intact record, or starts the first one.
+    private void recover() throws IOException {
+        List<Path> segments = segments(dir);
+        if (segments.isEmpty()) {
+            openSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        long sequence = sequenceOf(last);
+        long validEnd = scan(last, null);
+        if (validEnd < SEGMENT_HEADER_SIZE) {
+            if (Files.size(last) < SEGMENT_HEADER_SIZE) {
+                // Crashed before the header was written; nothing in it is usable
+                Files.delete(last);
+                openSegment(sequence);
+            } else {
+                // A newer format or a damaged header: keep it for whoever can read it
+                System.err.println("Answer log: " + last.getFileName()
+                        + " has an unknown header, leaving it and starting a new segment");
+                openSegment(sequence + 1);
+            }
+            return;
+        }
+        segment = FileChannel.open(last, StandardOpenOption.WRITE);
+        if (segment.size() > validEnd) {
+            System.err.printf("Answer log: truncating torn tail of %s at byte %d of %d%n",
+                    last.getFileName(), validEnd, segment.size());
+            segment.truncate(validEnd);
+            segment.force(false);
+        }
+        segmentSequence = sequence;
+        segmentPosition = validEnd;
+    }
+
+    // Reads every intact record in the log, oldest first; returns the number read.
+    public static long read(Path dir, Consumer<Event> consumer) throws IOException {
+        long[] count = new long[1];
+        for (Path segment : segments(dir)) {
+            long end = scan(segment, event -> {
+                count[0]++;
+                consumer.accept(event);
+            });
+            if (end == 0 && Files.size(segment) >= SEGMENT_HEADER_SIZE) {
+                System.err.println("Answer log: skipping " + segment.getFileName() + ", unknown header");
+            }
+        }
+        return count[0];
+    }
+
+    // Returns the offset just past the last intact record, or 0 if the segment
+    // header is missing or wrong.
+    private static long scan(Path path, Consumer<Event> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SEGMENT_HEADER_SIZE) {
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return 0;
+            }
+            CRC32C crc = new CRC32C();
+            int position = SEGMENT_HEADER_SIZE;
+            while (position + RECORD_HEADER_SIZE <= size) {
+                int length = buffer.getInt(position);
+                if (length < FIXED_PAYLOAD_SIZE || length > FIXED_PAYLOAD_SIZE + MAX_SESSION_BYTES
+                        || position + RECORD_HEADER_SIZE + length > size) {
+                    break;
+                }
+                int payload = position + RECORD_HEADER_SIZE;
+                crc.reset();
+                crc.update(buffer.slice(payload, length));
+                if ((int) crc.getValue() != buffer.getInt(position + 4)
+                        || (buffer.get(payload + 22) & 0xFF) != length - FIXED_PAYLOAD_SIZE) {
+                    break;
+                }
+                if (consumer != null) {
+                    byte[] session = new byte[length - FIXED_PAYLOAD_SIZE];
+                    buffer.get(payload + FIXED_PAYLOAD_SIZE, session);
+                    consumer.accept(new Event(new String(session, StandardCharsets.UTF_8),
+                            buffer.getInt(payload + 16), buffer.get(payload + 20), buffer.get(payload + 21),
+                            buffer.getLong(payload + 8), buffer.getLong(payload)));
+                }
+                position = payload + length;
+            }
+            return position;
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> p.getFileName().toString().matches("answers-\\d{12}\\.log"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path segmentPath(Path dir, long sequence) {
+        return dir.resolve(String.format("answers-%012d.log", sequence));
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("answers-".length(), name.length() - ".log".length()));
+    }
+
+    static String outcomeName(byte outcome) {
+        switch (outcome) {
+            case CORRECT:
+                return "correct";
+            case WRONG:
+                return "wrong";
+            case TIMEOUT:
+                return "timeout";
+            default:
+                return "unknown(" + outcome + ")";
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AnswerEventLog <log dir>");
+            System.exit(2);
+        }
+        Path dir = Paths.get(args[0]);
+        long[] outcomes = new long[3];
+        long total = read(dir, event -> {
+            if (event.outcome >= 0 && event.outcome < outcomes.length) {
+                outcomes[event.outcome]++;
+            }
+        });
+        System.out.printf("%d segments, %d events: %d correct, %d wrong, %d timeouts%n",
+                segments(dir).size(), total, outcomes[CORRECT], outcomes[WRONG], outcomes[TIMEOUT]);
+    }
+}
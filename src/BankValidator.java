@@ -0,0 +1,215 @@
+package src;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Lint pass over a question bank. The fast rules are the per-record errors that
+// would break a quiz (missing text, bad answer key, duplicate options); the
+// streaming loader applies them inline while parsing, so startup pays no extra
+// pass. The full mode adds warnings and cross-record rules and runs in parallel
+// as a standalone batch command:
+//
+//   java src.BankValidator <questions.json> [--report report.json]
+//
+// Exits with status 1 when any error is found.
+public class BankValidator {
+
+    public static final int MIN_BANK_SIZE = 200;
+    private static final int MAX_TEXT_BYTES = 0xFFFF;
+    private static final int MAX_TAGS = 255;
+
+    // First fast-rule error for a record, or null when it can be used in a quiz.
+    public static String firstError(Question q) {
+        String[] first = new String[1];
+        checkRecord(q, 0, false, v -> {
+            if (first[0] == null) {
+                first[0] = v.message;
+            }
+        });
+        return first[0];
+    }
+
+    // Runs every rule over the bank in parallel and returns violations in record order.
+    public static List<BankViolation> validate(List<Question> questions) {
+        List<BankViolation> violations = IntStream.range(0, questions.size()).parallel()
+                .mapToObj(i -> {
+                    List<BankViolation> found = new ArrayList<>(0);
+                    checkRecord(questions.get(i), i, true, found::add);
+                    return found;
+                })
+                .flatMap(List::stream)
+                .collect(Collectors.toCollection(ArrayList::new));
+
+        violations.addAll(findDuplicateQuestions(questions));
+        if (questions.size() < MIN_BANK_SIZE) {
+            violations.add(new BankViolation(-1, "bank-size", BankViolation.Severity.WARNING,
+                    "The bank should contain at least " + MIN_BANK_SIZE + " questions, found " + questions.size()));
+        }
+        violations.sort(Comparator.comparingInt((BankViolation v) -> v.record).thenComparing(v -> v.rule));
+        return violations;
+    }
+
+    static void checkRecord(Question q, int record, boolean full, Consumer<BankViolation> sink) {
+        if (isBlank(q.question)) {
+            sink.accept(error(record, "missing-question", "Missing question text"));
+        }
+        for (int i = 0; i < 4; i++) {
+            if (isBlank(q.option(i))) {
+                sink.accept(error(record, "missing-option", "Option " + letter(i) + " is empty"));
+            }
+        }
+        if (q.answerIndex() < 0) {
+            sink.accept(error(record, "invalid-answer",
+                    "Answer must be one of option_a..option_d, found '" + q.answer + "'"));
+        }
+        for (int i = 0; i < 4; i++) {
+            for (int j = i + 1; j < 4; j++) {
+                // Empty options are reported above; comparing them would only add noise
+                if (!isBlank(q.option(i)) && !isBlank(q.option(j))
+                        && normalize(q.option(i)).equals(normalize(q.option(j)))) {
+                    sink.accept(error(record, "duplicate-option",
+                            "Options " + letter(i) + " and " + letter(j) + " are the same"));
+                }
+            }
+        }
+        if (q.chapter < 0 || q.chapter > 0xFFFF) {
+            sink.accept(error(record, "invalid-chapter", "Chapter out of range: " + q.chapter));
+        }
+        if (q.tags != null && q.tags.length > MAX_TAGS) {
+            sink.accept(error(record, "too-many-tags", "More than " + MAX_TAGS + " tags"));
+        }
+        if (tooLong(q.question) || tooLong(q.option_a) || tooLong(q.option_b) || tooLong(q.option_c) || tooLong(q.option_d)) {
+            sink.accept(error(record, "text-too-long", "Text longer than " + MAX_TEXT_BYTES + " bytes"));
+        }
+        if (!full) {
+            return;
+        }
+
+        if (hasStrayWhitespace(q.question) || hasStrayWhitespace(q.option_a) || hasStrayWhitespace(q.option_b)
+                || hasStrayWhitespace(q.option_c) || hasStrayWhitespace(q.option_d)) {
+            sink.accept(warning(record, "whitespace", "Leading or trailing whitespace"));
+        }
+        if (q.question != null && !q.question.isBlank() && !q.question.trim().endsWith("?")
+                && !q.question.trim().endsWith(".") && !q.question.trim().endsWith(":")) {
+            sink.accept(warning(record, "punctuation", "Question does not end with '?', '.' or ':'"));
+        }
+        if (q.tags != null && Arrays.stream(q.tags).anyMatch(BankValidator::isBlank)) {
+            sink.accept(warning(record, "empty-tag", "Empty tag"));
+        }
+    }
+
+    // Same question text more than once; every repeat points at the first occurrence.
+    private static List<BankViolation> findDuplicateQuestions(List<Question> questions) {
+        Map<String, Integer> first = new ConcurrentHashMap<>();
+        IntStream.range(0, questions.size()).parallel().forEach(i -> {
+            String text = questions.get(i).question;
+            if (!isBlank(text)) {
+                first.merge(normalize(text), i, Math::min);
+            }
+        });
+        return IntStream.range(0, questions.size()).parallel()
+                .filter(i -> !isBlank(questions.get(i).question))
+                .mapToObj(i -> {
+                    int original = first.get(normalize(questions.get(i).question));
+                    return original == i ? null : warning(i, "duplicate-question", "Same question as record " + original);
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    public static Map<String, Object> report(String bank, int records, List<BankViolation> violations) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("bank", bank);
+        report.put("records", records);
+        report.put("errors", violations.stream().filter(v -> v.severity == BankViolation.Severity.ERROR).count());
+        report.put("warnings", violations.stream().filter(v -> v.severity == BankViolation.Severity.WARNING).count());
+        report.put("violations", violations);
+        return report;
+    }
+
+    private static BankViolation error(int record, String rule, String message) {
+        return new BankViolation(record, rule, BankViolation.Severity.ERROR, message);
+    }
+
+    private static BankViolation warning(int record, String rule, String message) {
+        return new BankViolation(record, rule, BankViolation.Severity.WARNING, message);
+    }
+
+    private static char letter(int option) {
+        return (char) ('A' + option);
+    }
+
+    private static String normalize(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static boolean hasStrayWhitespace(String s) {
+        return s != null && !s.isEmpty() && (Character.isWhitespace(s.charAt(0))
+                || Character.isWhitespace(s.charAt(s.length() - 1)));
+    }
+
+    private static boolean tooLong(String s) {
+        // UTF-8 needs at most 3 bytes per char, so only long strings need encoding
+        return s != null && s.length() * 3 > MAX_TEXT_BYTES
+                && s.getBytes(StandardCharsets.UTF_8).length > MAX_TEXT_BYTES;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BankValidator <questions.json> [--report report.json]");
+            System.exit(2);
+        }
+        String reportPath = args.length > 2 && "--report".equals(args[1]) ? args[2] : null;
+
+        long start = System.nanoTime();
+        List<Question> questions = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<BankViolation> parseErrors = new ArrayList<>();
+        try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+             QuestionStreamReader records = new QuestionStreamReader(reader, false, error -> parseErrors.add(
+                     new BankViolation(error.recordIndex, "parse", BankViolation.Severity.ERROR, error.message)))) {
+            while (records.hasNext()) {
+                questions.add(records.next());
+                positions.add(records.getRecordIndex());
+            }
+        }
+        // Map list positions back to source record positions, which differ once a record fails to parse
+        List<BankViolation> violations = new ArrayList<>();
+        for (BankViolation v : validate(questions)) {
+            violations.add(v.record < 0 ? v : new BankViolation(positions.get(v.record), v.rule, v.severity, v.message));
+        }
+        violations.addAll(parseErrors);
+        violations.sort(Comparator.comparingInt(v -> v.record));
+
+        Map<String, Object> report = report(args[0], questions.size() + parseErrors.size(), violations);
+        Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+        if (reportPath != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(reportPath), StandardCharsets.UTF_8)) {
+                gson.toJson(report, out);
+            }
+        } else {
+            violations.forEach(System.out::println);
+        }
+        System.out.printf("%d records, %s errors, %s warnings in %d ms%n", report.get("records"),
+                report.get("errors"), report.get("warnings"), (System.nanoTime() - start) / 1_000_000);
+        if ((long) report.get("errors") > 0) {
+            System.exit(1);
+        }
+    }
+}
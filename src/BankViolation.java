@@ -0,0 +1,24 @@
+package src;
+
+// One rule violation found while validating a question bank.
+public class BankViolation {
+
+    public enum Severity { ERROR, WARNING }
+
+    public final int record;
+    public final String rule;
+    public final Severity severity;
+    public final String message;
+
+    public BankViolation(int record, String rule, Severity severity, String message) {
+        this.record = record;
+        this.rule = rule;
+        this.severity = severity;
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return severity + " record " + record + " [" + rule + "]: " + message;
+    }
+}
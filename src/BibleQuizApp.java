@@ -1,58 +1,112 @@
 package src;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import javafx.animation.*;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.image.Image;
 import javafx.scene.layout.*;
-import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import javafx.scene.media.AudioClip;
+import javafx.util.StringConverter;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
 
+// Members that are package-private rather than private are driven directly by the
+// JMH benchmarks in benchmarks/, which run the app on a headless glass platform.
 public class BibleQuizApp extends Application {
 
-    private List<Question> allQuestions;
-    private List<Question> quizQuestions;
-    private Set<Integer> usedQuestionIndices = new HashSet<>();
-    private int currentQuestionIndex = 0;
-    private int score = 0;
+    private static final String BANK_DIRECTORY = "resources/data";
+    private static final String WELCOME_IMAGE_PATH = "resources/images/jesuschar.jpeg";
+    // -Dbiblequiz.traceScreens=true logs the time and allocation of every screen switch
+    private static final boolean TRACE_SCREENS = Boolean.getBoolean("biblequiz.traceScreens");
+    // Seconds left at which the countdown starts ticking
+    private static final int TICK_SECONDS = 5;
+    // How long the presenter's answer stays on screen before the next question
+    private static final int ANSWER_PAUSE_MILLIS = 1500;
+
+    private enum Screen { WELCOME, QUIZ, SCORE }
+
+    // Replaced as a whole by the bank watcher; the FX thread only ever reads it
+    volatile QuestionBankSnapshot bank;
+    // Name of the bank above, e.g. questions_pt for Portuguese
+    private volatile String bankName;
+    // The quiz language: -Dbiblequiz.language=pt-BR fixes it for a kiosk, otherwise the
+    // system locale until the player picks another on the welcome screen
+    private String language = System.getProperty("biblequiz.language", Locale.getDefault().toLanguageTag());
+    private volatile List<String> languages = List.of();
+    private final QuestionBankCache banks = new QuestionBankCache(Paths.get(BANK_DIRECTORY),
+            QuestionBankCache.budgetFromSystemProperty(), this::bankReloaded);
+    private final String playerId = System.getProperty("user.name", "local");
+    private SeenQuestionStore seenQuestions;
+    private final PlayerAbilities abilities = new PlayerAbilities();
+    private StudyScheduler studyScheduler;
+    // Host mode (-Dbiblequiz.hostPort=N): participants follow this screen's quiz live
+    private QuizRoomServer room;
+    // When the room closes the open question on its own clock
+    private long roomCloseNanos;
+    private final boolean adaptive = !"false".equals(System.getProperty("biblequiz.adaptive"));
+    QuizSession session;
 
     private Label questionLabel;
     private Label timerLabel;
     private Label timerIcon;
     private Label scoreLabel;
     private Label questionCounter;
-    private Button[] optionButtons = new Button[4];
-    private Timeline countdownTimeline;
-    private int timeLeft = 30;
+    Button[] optionButtons = new Button[4];
     private ProgressBar timerProgress;
-
-    // Sound effects
-    private AudioClip correctSound;
-    private AudioClip wrongSound;
-    private AudioClip timeUpSound;
+    private HBox timerContainer;
+    // One clock and two pauses for the life of the app, so a question allocates no animations
+    private AnimationTimer quizClock;
+    private PauseTransition answerPause;
+    private PauseTransition timeUpPause;
+    private int shownSeconds;
+    private final int secondsPerQuestion = Integer.getInteger("biblequiz.secondsPerQuestion",
+            QuizSession.SECONDS_PER_QUESTION);
+
+    // Sound effects, decoded up front and played on a pre-opened line; null until loaded
+    private SoundEngine sounds;
 
     // GUI Components
     private Scene scene;
     private StackPane welcomeLayout;
+    private Region welcomeBackground;
+    private Button startButton;
+    private Button studyButton;
+    private ComboBox<String> languageBox;
+    private VBox loadingBox;
+    private ProgressBar loadingProgress;
+    private final StartupLog startupLog = new StartupLog();
+    private final Theme theme = Theme.fromSystemProperty();
+    private final QuizTelemetry telemetry = new QuizTelemetry();
+    private AnswerEventLog answerLog;
+    private LeaderboardStore leaderboards;
+    private final ScheduledExecutorService leaderboardSync = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "leaderboard-sync");
+        t.setDaemon(true);
+        return t;
+    });
+    private final String event = System.getProperty("biblequiz.event");
+    private Path dataDir;
     private StackPane quizLayout;
     private StackPane scoreLayout;
+    private Pane scoreBackground;
+    private Label scoreEmoji;
+    private Label scoreText;
+    private Label performanceMsg;
+    private Label pointsLabel;
+    private Label rankLabel;
+    private Label challengeLabel;
     private Stage primaryStage;
 
     @Override
@@ -62,41 +116,149 @@ public class BibleQuizApp extends Application {
         primaryStage.setMinWidth(800);
         primaryStage.setMinHeight(700);
 
-        // Initialize sound effects
-        initializeSounds();
+        dataDir = Paths.get(System.getProperty("biblequiz.data",
+                Paths.get(System.getProperty("user.home"), ".bible-quiz").toString()));
+        seenQuestions = new SeenQuestionStore(dataDir.resolve("seen"), 16);
+        studyScheduler = new StudyScheduler(dataDir.resolve("study"), 16);
+        try {
+            answerLog = new AnswerEventLog(dataDir.resolve("answers"));
+        } catch (IOException e) {
+            System.err.println("Answer history disabled, could not open log: " + e.getMessage());
+        }
+        try {
+            leaderboards = new LeaderboardStore(dataDir.resolve("leaderboard"));
+            // Submissions are buffered until a sync, so sync often enough that a crash
+            // or a killed kiosk loses at most the last second of results
+            leaderboardSync.scheduleAtFixedRate(this::syncLeaderboards, 1, 1, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            System.err.println("Leaderboard disabled, could not open it: " + e.getMessage());
+        }
+        Integer hostPort = Integer.getInteger("biblequiz.hostPort");
+        if (hostPort != null) {
+            try {
+                room = new QuizRoomServer();
+                room.start(hostPort);
+            } catch (IOException e) {
+                System.err.println("Host mode disabled, could not open port " + hostPort + ": " + e.getMessage());
+                room = null;
+            }
+        }
 
-        // Create welcome screen
+        // Show the welcome screen first; START QUIZ is enabled once loading finishes
+        long phase = startupLog.begin();
         createWelcomeScreen();
+        startupLog.phase("window", phase);
 
-        // Load questions
-        loadQuestions();
+        loadInBackground();
     }
 
-    private void initializeSounds() {
+    // Loads the bank, sounds and background image in parallel off the FX thread.
+    // Each loader only touches UI through Platform.runLater.
+    private void loadInBackground() {
+        ExecutorService loader = Executors.newFixedThreadPool(3, r -> {
+            Thread t = new Thread(r, "startup-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        CompletableFuture<List<String>> bankTask = timed("bank", loader, this::loadQuestions);
+        CompletableFuture<Void> soundTask = timed("sounds", loader, () -> {
+            sounds = SoundEngine.open();
+            return null;
+        });
+        CompletableFuture<Image> imageTask = timed("images", loader,
+                () -> new Image(getClass().getResource("/" + WELCOME_IMAGE_PATH).toString()));
+        loader.shutdown();
+
+        List<CompletableFuture<?>> tasks = List.of(bankTask, soundTask, imageTask);
+        for (CompletableFuture<?> task : tasks) {
+            task.whenComplete((result, error) -> Platform.runLater(() ->
+                    loadingProgress.setProgress(tasks.stream().filter(CompletableFuture::isDone).count() / (double) tasks.size())));
+        }
+        CompletableFuture.allOf(bankTask, soundTask, imageTask).whenComplete((ignored, error) ->
+                Platform.runLater(() -> finishLoading(bankTask, imageTask)));
+    }
+
+    private <T> CompletableFuture<T> timed(String phase, Executor executor, Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = startupLog.begin();
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                startupLog.phase(phase, start);
+            }
+        }, executor);
+    }
+
+    private void finishLoading(CompletableFuture<List<String>> bankTask, CompletableFuture<Image> imageTask) {
+        loadingBox.setVisible(false);
+        loadingBox.setManaged(false);
+
+        if (!imageTask.isCompletedExceptionally()) {
+            welcomeBackground.setBackground(new Background(new BackgroundImage(imageTask.join(),
+                    BackgroundRepeat.NO_REPEAT, BackgroundRepeat.NO_REPEAT, BackgroundPosition.CENTER,
+                    new BackgroundSize(1, 1, true, true, false, true))));
+            welcomeBackground.setOpacity(0.35);
+        } else {
+            System.err.println("Error loading background image: " + WELCOME_IMAGE_PATH);
+        }
+
+        List<String> warnings;
+        try {
+            warnings = bankTask.join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+            showAlert(Alert.AlertType.ERROR, "Error", e.getCause() instanceof IOException
+                    ? e.getCause().getMessage() : "Failed to load questions.");
+            Platform.exit();
+            return;
+        }
+        startButton.setDisable(false);
+        studyButton.setDisable(false);
+        showLanguages();
+        startupLog.interactive();
+        for (String warning : warnings) {
+            showAlert(Alert.AlertType.WARNING, "Warning", warning);
+        }
+    }
+
+    @Override
+    public void stop() throws Exception {
+        if (room != null) {
+            room.stop();
+        }
+        if (sounds != null) {
+            sounds.close();
+        }
+        if (answerLog != null) {
+            answerLog.close();
+        }
+        leaderboardSync.shutdownNow();
+        leaderboardSync.awaitTermination(1, TimeUnit.SECONDS);
+        if (leaderboards != null) {
+            leaderboards.close();
+        }
         try {
-            correctSound = loadSound("resources/sounds/correct.wav");
-            wrongSound = loadSound("resources/sounds/wrong.wav");
-            timeUpSound = loadSound("resources/sounds/timeup.wav");
-        } catch (Exception e) {
-            System.err.println("Error loading sounds: " + e.getMessage());
+            telemetry.export(dataDir.resolve("telemetry.json"));
+        } catch (IOException e) {
+            System.err.println("Error exporting telemetry: " + e.getMessage());
         }
+        banks.close();
     }
 
-    private AudioClip loadSound(String filePath) {
+    private void syncLeaderboards() {
         try {
-            return new AudioClip(getClass().getResource("/" + filePath).toString());
-        } catch (Exception e) {
-            System.err.println("Error loading sound: " + filePath);
-            return null;
+            leaderboards.sync();
+        } catch (IOException e) {
+            System.err.println("Error syncing leaderboards: " + e.getMessage());
         }
     }
 
     private void createWelcomeScreen() {
         // Background with gradient
         Pane backgroundPane = new Pane();
-        backgroundPane.setStyle(
-                "-fx-background-color: linear-gradient(to bottom right, #a8c0ff, #3f2b96);"
-        );
+        backgroundPane.getStyleClass().add("welcome-background");
 
         // Main content container
         VBox mainContent = new VBox(40);
@@ -105,112 +267,97 @@ public class BibleQuizApp extends Application {
 
         // Bible icon
         Label bibleIcon = new Label("📖");
-        bibleIcon.setStyle("-fx-font-size: 120px;");
+        bibleIcon.getStyleClass().add("welcome-icon");
 
         // Title with glow effect
         Label titleLabel = new Label("Bible Quiz");
-        titleLabel.setStyle(
-                "-fx-font-size: 42px; " +
-                        "-fx-font-weight: bold; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.8), 10, 0, 0, 0);"
-        );
+        titleLabel.getStyleClass().add("welcome-title");
 
         // Subtitle
         Label subtitleLabel = new Label("Test your knowledge of Scripture");
-        subtitleLabel.setStyle(
-                "-fx-font-size: 18px; " +
-                        "-fx-text-fill: rgba(255,255,255,0.9); " +
-                        "-fx-font-style: italic;"
-        );
+        subtitleLabel.getStyleClass().add("welcome-subtitle");
 
         // Start button
-        Button startButton = new Button("START QUIZ");
-        startButton.setStyle(
-                "-fx-font-size: 18px; " +
-                        "-fx-font-weight: bold; " +
-                        "-fx-padding: 15 40; " +
-                        "-fx-background-radius: 30; " +
-                        "-fx-background-color: linear-gradient(to bottom, #4CAF50, #2E7D32); " +
-                        "-fx-text-fill: white; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.4), 10, 0, 0, 5);"
-        );
-
-        // Button hover effects
-        startButton.setOnMouseEntered(e -> {
-            startButton.setStyle(
-                    "-fx-font-size: 18px; " +
-                            "-fx-font-weight: bold; " +
-                            "-fx-padding: 15 40; " +
-                            "-fx-background-radius: 30; " +
-                            "-fx-background-color: linear-gradient(to bottom, #66BB6A, #388E3C); " +
-                            "-fx-text-fill: white; " +
-                            "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.6), 15, 0, 0, 8);"
-            );
-        });
-
-        startButton.setOnMouseExited(e -> {
-            startButton.setStyle(
-                    "-fx-font-size: 18px; " +
-                            "-fx-font-weight: bold; " +
-                            "-fx-padding: 15 40; " +
-                            "-fx-background-radius: 30; " +
-                            "-fx-background-color: linear-gradient(to bottom, #4CAF50, #2E7D32); " +
-                            "-fx-text-fill: white; " +
-                            "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.4), 10, 0, 0, 5);"
-            );
-        });
+        startButton = new Button("START QUIZ");
+        startButton.getStyleClass().add("start-button");
 
         startButton.setOnAction(e -> startQuiz());
+        startButton.setDisable(true);
+
+        // Untimed spaced-repetition practice: missed questions come back, then less and less often
+        studyButton = new Button("STUDY");
+        studyButton.getStyleClass().addAll("start-button", "study-button");
+        studyButton.setOnAction(e -> startStudy());
+        studyButton.setDisable(true);
+
+        HBox startButtons = new HBox(20, startButton, studyButton);
+        startButtons.setAlignment(Pos.CENTER);
+
+        // Shown once loading finishes, when there is more than one language to pick
+        languageBox = new ComboBox<>();
+        languageBox.getStyleClass().add("language-box");
+        languageBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(String tag) {
+                return tag == null ? "" : displayName(tag);
+            }
+
+            @Override
+            public String fromString(String name) {
+                return null;
+            }
+        });
+        languageBox.setOnAction(e -> switchLanguage(languageBox.getValue()));
+        languageBox.setVisible(false);
+        languageBox.setManaged(false);
+
+        // Loading progress, hidden once the bank and assets are ready
+        loadingProgress = new ProgressBar(0);
+        loadingProgress.setPrefWidth(240);
+        Label loadingLabel = new Label("Loading questions...");
+        loadingLabel.getStyleClass().add("loading-label");
+        loadingBox = new VBox(8, loadingProgress, loadingLabel);
+        loadingBox.setAlignment(Pos.CENTER);
 
         // Stats preview
         VBox statsBox = new VBox(15);
         statsBox.setAlignment(Pos.CENTER);
         statsBox.setMaxWidth(400);
-        statsBox.setStyle(
-                "-fx-background-color: rgba(0,0,0,0.2); " +
-                        "-fx-background-radius: 15; " +
-                        "-fx-padding: 20; " +
-                        "-fx-border-color: rgba(255,255,255,0.3); " +
-                        "-fx-border-radius: 15; " +
-                        "-fx-border-width: 2;"
-        );
+        statsBox.getStyleClass().add("stats-box");
 
         Label statsTitle = new Label("QUIZ DETAILS");
-        statsTitle.setStyle("-fx-font-size: 16px; -fx-font-weight: bold; -fx-text-fill: white;");
+        statsTitle.getStyleClass().add("stats-title");
 
         Label questionCount = new Label("• 15 Random Questions");
-        Label timeLimit = new Label("• 30 Seconds Per Question");
+        Label timeLimit = new Label("• " + secondsPerQuestion + " Seconds Per Question");
         Label difficulty = new Label("• Biblical Knowledge Test");
 
-        String statStyle = "-fx-font-size: 14px; -fx-text-fill: white;";
-        questionCount.setStyle(statStyle);
-        timeLimit.setStyle(statStyle);
-        difficulty.setStyle(statStyle);
+        questionCount.getStyleClass().add("stats-item");
+        timeLimit.getStyleClass().add("stats-item");
+        difficulty.getStyleClass().add("stats-item");
 
         statsBox.getChildren().addAll(statsTitle, questionCount, timeLimit, difficulty);
 
-        mainContent.getChildren().addAll(bibleIcon, titleLabel, subtitleLabel, startButton, statsBox);
+        mainContent.getChildren().addAll(bibleIcon, titleLabel, subtitleLabel, startButtons, languageBox, loadingBox,
+                statsBox);
+
+        // Filled with the background image once it has loaded
+        welcomeBackground = new Region();
 
         welcomeLayout = new StackPane();
-        welcomeLayout.getChildren().addAll(backgroundPane, mainContent);
+        welcomeLayout.getChildren().addAll(backgroundPane, welcomeBackground, mainContent);
 
         scene = new Scene(welcomeLayout, 800, 700);
+        theme.apply(scene);
         primaryStage.setScene(scene);
         primaryStage.show();
     }
 
-    private void createQuizScreen() {
-        // Clear previous quiz layout if exists
-        if (quizLayout != null) {
-            quizLayout.getChildren().clear();
-        }
-
+    // Built once; resetQuizScreen() prepares it for each new game.
+    void createQuizScreen() {
         // Updated background to lighter color
         Pane backgroundPane = new Pane();
-        backgroundPane.setStyle(
-                "-fx-background-color: linear-gradient(to bottom, #f5f7fa, #e4e8f0);"
-        );
+        backgroundPane.getStyleClass().add("quiz-background");
 
         // Main layout using BorderPane for better control
         BorderPane mainLayout = new BorderPane();
@@ -219,34 +366,30 @@ public class BibleQuizApp extends Application {
         // Create top bar with home button, timer and score
         HBox topBar = new HBox(20);
         topBar.setAlignment(Pos.CENTER_LEFT);
-        topBar.setStyle("-fx-background-color: rgba(255,255,255,0.7); -fx-background-radius: 10; -fx-padding: 10;");
+        topBar.getStyleClass().add("quiz-bar");
         topBar.setMaxWidth(Double.MAX_VALUE);
 
         // Timer progress bar
         timerProgress = new ProgressBar(1.0);
         timerProgress.setPrefWidth(250);
         timerProgress.setPrefHeight(10);
-        timerProgress.setStyle(
-                "-fx-accent: #4CAF50; " +
-                        "-fx-background-radius: 5; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 5, 0, 0, 1);"
-        );
+        timerProgress.getStyleClass().add("timer-progress");
 
         // Timer container
-        HBox timerContainer = new HBox(5);
+        timerContainer = new HBox(5);
         timerContainer.setAlignment(Pos.CENTER);
 
         timerIcon = new Label("⏳");
-        timerIcon.setStyle("-fx-font-size: 20px;");
+        timerIcon.getStyleClass().add("timer-icon");
 
         timerLabel = new Label("30 SECONDS");
-        timerLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        timerLabel.getStyleClass().add("timer-label");
 
         timerContainer.getChildren().addAll(timerIcon, timerLabel);
 
         // Score label
         scoreLabel = new Label("🏆 SCORE: 0");
-        scoreLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        scoreLabel.getStyleClass().add("score-label");
 
         // Add spacer to push items to edges
         Region spacer = new Region();
@@ -265,15 +408,10 @@ public class BibleQuizApp extends Application {
         headerBox.setAlignment(Pos.CENTER);
 
         Label bibleIcon = new Label("📖");
-        bibleIcon.setStyle("-fx-font-size: 40px;");
+        bibleIcon.getStyleClass().add("quiz-icon");
 
         Label titleLabel = new Label("BIBLE QUIZ");
-        titleLabel.setStyle(
-                "-fx-font-size: 28px; " +
-                        "-fx-font-weight: bold; " +
-                        "-fx-text-fill: #37474f; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 5, 0, 0, 1);"
-        );
+        titleLabel.getStyleClass().add("quiz-title");
 
         headerBox.getChildren().addAll(bibleIcon, titleLabel);
 
@@ -282,21 +420,12 @@ public class BibleQuizApp extends Application {
         questionCard.setAlignment(Pos.CENTER);
         questionCard.setPadding(new Insets(25));
         questionCard.setMaxWidth(650);
-        questionCard.setStyle(
-                "-fx-background-color: white; " +
-                        "-fx-background-radius: 20; " +
-                        "-fx-border-color: #cfd8dc; " +
-                        "-fx-border-width: 1; " +
-                        "-fx-border-radius: 20; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 15, 0, 0, 5);"
-        );
+        questionCard.getStyleClass().add("question-card");
 
         questionLabel = new Label();
-        questionLabel.setFont(Font.font("Arial", FontWeight.BOLD, 22));
+        questionLabel.getStyleClass().add("question-label");
         questionLabel.setWrapText(true);
         questionLabel.setAlignment(Pos.CENTER);
-        questionLabel.setTextFill(Color.web("#37474f"));
-        questionLabel.setStyle("-fx-line-spacing: 8px;");
 
         questionCard.getChildren().add(questionLabel);
 
@@ -306,10 +435,8 @@ public class BibleQuizApp extends Application {
         optionsGrid.setVgap(20);
         optionsGrid.setAlignment(Pos.CENTER);
 
-        String optionColor = "#3F51B5";
-
         for (int i = 0; i < 4; i++) {
-            Button btn = createOptionButton(optionColor);
+            Button btn = createOptionButton();
             optionButtons[i] = btn;
             optionsGrid.add(btn, i % 2, i / 2);
         }
@@ -320,137 +447,227 @@ public class BibleQuizApp extends Application {
         // Create footer with question counter
         HBox footer = new HBox();
         footer.setAlignment(Pos.CENTER);
-        footer.setStyle("-fx-background-color: rgba(255,255,255,0.7); -fx-background-radius: 10; -fx-padding: 10;");
+        footer.getStyleClass().add("quiz-bar");
 
         questionCounter = new Label();
-        questionCounter.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        questionCounter.getStyleClass().add("question-counter");
         questionCounter.setText("Question 1 of 15");
 
-        // Add some styling to make it stand out
-        questionCounter.setStyle(
-                "-fx-text-fill: #3F51B5; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 5, 0, 0, 1);"
-        );
-
         footer.getChildren().add(questionCounter);
         mainLayout.setBottom(footer);
 
         quizLayout = new StackPane();
+        quizLayout.getStyleClass().add("quiz-screen");
         quizLayout.getChildren().addAll(backgroundPane, mainLayout);
+
+        // Runs once per pulse while a question is open; 'now' is on the System.nanoTime() timeline
+        quizClock = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                updateTimer(now);
+            }
+        };
+        answerPause = new PauseTransition(Duration.millis(ANSWER_PAUSE_MILLIS));
+        answerPause.setOnFinished(e -> {
+            session.nextQuestion();
+            nextQuestion();
+        });
+        timeUpPause = new PauseTransition(Duration.seconds(1.5));
+        timeUpPause.setOnFinished(e -> endQuiz());
     }
 
-    private Button createOptionButton(String color) {
+    private void resetQuizScreen() {
+        scoreLabel.setText("🏆 SCORE: 0");
+        quizLayout.pseudoClassStateChanged(Theme.TIME_UP, false);
+        quizLayout.pseudoClassStateChanged(Theme.TIME_LOW, false);
+        // Study mode is untimed
+        timerProgress.setVisible(!session.isStudy());
+        timerContainer.setVisible(!session.isStudy());
+    }
+
+    private Button createOptionButton() {
         Button btn = new Button();
-        btn.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        btn.getStyleClass().add("option-button");
         btn.setPrefWidth(320);
         btn.setPrefHeight(70);
-        btn.setStyle(
-                "-fx-background-radius: 15; " +
-                        "-fx-background-color: " + color + "; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 10, 0, 0, 3);"
-        );
-
-        // Hover effects
-        btn.setOnMouseEntered(e -> {
-            if (!btn.isDisabled()) {
-                btn.setStyle(
-                        "-fx-background-radius: 15; " +
-                                "-fx-background-color: derive(" + color + ", 20%); " +
-                                "-fx-text-fill: white; " +
-                                "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.3), 15, 0, 0, 5);"
-                );
-            }
-        });
-
-        btn.setOnMouseExited(e -> {
-            if (!btn.isDisabled()) {
-                btn.setStyle(
-                        "-fx-background-radius: 15; " +
-                                "-fx-background-color: " + color + "; " +
-                                "-fx-text-fill: white; " +
-                                "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 10, 0, 0, 3);"
-                );
-            }
-        });
 
         btn.setOnAction(e -> checkAnswer(btn));
         return btn;
     }
 
-    private void loadQuestions() {
-    try (InputStream is = getClass().getResourceAsStream("/resources/data/questions.json")) {
-        if (is == null) {
-            showAlert(Alert.AlertType.ERROR, "Error", "Questions file not found inside JAR.");
-            Platform.exit();
-            return;
+    // Runs on a loader thread. Fatal problems are thrown, anything the player should
+    // be warned about is returned for the FX thread to show.
+    List<String> loadQuestions() throws IOException {
+        String name = banks.resolve(language);
+        try {
+            bank = join(banks.get(name));
+        } catch (IOException e) {
+            if (name.equals(QuestionBankCache.DEFAULT_BANK)) {
+                throw e;
+            }
+            System.err.println("Could not load " + name + ", using the default questions: " + e.getMessage());
+            name = QuestionBankCache.DEFAULT_BANK;
+            bank = join(banks.get(name));
         }
+        bankName = name;
+        languages = banks.availableLanguages();
 
-        InputStreamReader reader = new InputStreamReader(is);
-        java.lang.reflect.Type questionListType = new TypeToken<ArrayList<Question>>() {}.getType();
-        allQuestions = new Gson().fromJson(reader, questionListType);
-
-        if (allQuestions.size() < 200) {
-            showAlert(Alert.AlertType.WARNING, "Warning", "The questions file should contain at least 200 questions.");
+        List<String> warnings = new ArrayList<>();
+        int skipped = banks.skippedRecords(name);
+        if (skipped > 0) {
+            warnings.add(skipped + " invalid questions were skipped.");
+        }
+        if (bank.size() < 200) {
+            warnings.add("The questions file should contain at least 200 questions.");
         }
-    } catch (Exception e) {
-        e.printStackTrace();
-        showAlert(Alert.AlertType.ERROR, "Error", "Failed to load questions.");
-        Platform.exit();
+        return warnings;
     }
-}
 
-    private void startQuiz() {
-        // Reset used questions if starting a new quiz
-        usedQuestionIndices.clear();
-        quizQuestions = new ArrayList<>();
+    private static QuestionBankSnapshot join(CompletableFuture<QuestionBankSnapshot> load) throws IOException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
 
-        // Create a list of all available question indices
-        List<Integer> allIndices = new ArrayList<>();
-        for (int i = 0; i < allQuestions.size(); i++) {
-            allIndices.add(i);
+    // Called on the watcher thread; a quiz in progress keeps the questions it started with.
+    private void bankReloaded(String name, QuestionBankSnapshot next) {
+        if (name.equals(bankName)) {
+            bank = next;
         }
+    }
 
-        // Shuffle all indices to get random order
-        Collections.shuffle(allIndices);
+    private void showLanguages() {
+        List<String> available = languages;
+        if (available.size() < 2) {
+            return;
+        }
+        languageBox.getItems().setAll(available);
+        available.stream()
+                .filter(tag -> banks.resolve(tag).equals(bankName))
+                .findFirst()
+                .ifPresent(languageBox::setValue);
+        languageBox.setVisible(true);
+        languageBox.setManaged(true);
+    }
 
-        // Select the first 15 unique questions (or less if not enough available)
-        int quizSize = Math.min(15, allQuestions.size());
-        for (int i = 0; i < quizSize; i++) {
-            int randomIndex = allIndices.get(i);
-            quizQuestions.add(allQuestions.get(randomIndex));
-            usedQuestionIndices.add(randomIndex);
+    // Loads the language's bank in the background, or takes it from the cache, and
+    // swaps it in; the welcome screen stays responsive while a large bank loads.
+    private void switchLanguage(String tag) {
+        if (tag == null) {
+            return;
+        }
+        String name = banks.resolve(tag);
+        if (name.equals(bankName)) {
+            return;
+        }
+        String previous = language;
+        CompletableFuture<QuestionBankSnapshot> load = banks.get(name);
+        startButton.setDisable(true);
+        studyButton.setDisable(true);
+        languageBox.setDisable(true);
+        if (!load.isDone()) {
+            loadingProgress.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+            loadingBox.setVisible(true);
+            loadingBox.setManaged(true);
         }
+        load.whenComplete((snapshot, error) -> Platform.runLater(() -> {
+            loadingBox.setVisible(false);
+            loadingBox.setManaged(false);
+            startButton.setDisable(false);
+            studyButton.setDisable(false);
+            languageBox.setDisable(false);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                cause.printStackTrace();
+                showAlert(Alert.AlertType.ERROR, "Error", "Could not load the " + displayName(tag)
+                        + " questions: " + cause.getMessage());
+                languageBox.setValue(previous);
+                return;
+            }
+            bank = snapshot;
+            bankName = name;
+            language = tag;
+        }));
+    }
+
+    private static String displayName(String tag) {
+        Locale locale = Locale.forLanguageTag(tag);
+        String name = locale.getDisplayName(locale);
+        return name.isEmpty() ? tag : name.substring(0, 1).toUpperCase(locale) + name.substring(1);
+    }
 
-        // Initialize quiz
-        currentQuestionIndex = 0;
-        score = 0;
+    // Seen questions, ability and study cards are per bank, since question indices
+    // and difficulty ratings only mean something within one bank.
+    private String historyKey() {
+        return QuestionBankCache.DEFAULT_BANK.equals(bankName) ? playerId : playerId + "@" + bankName;
+    }
 
-        // Always create a new quiz screen
-        createQuizScreen();
+    void startQuiz() {
+        long now = System.nanoTime();
+        // Up to 15 questions this player has not seen before, each matched to their
+        // current ability unless -Dbiblequiz.adaptive=false asks for a random draw
+        QuestionBankSnapshot snapshot = bank;
+        QuizSampler sampler = new QuizSampler(new Random().nextLong()).avoiding(snapshot.getDuplicates());
+        String id = UUID.randomUUID().toString();
+        session = adaptive
+                ? QuizSession.startAdaptive(id, snapshot.getQuestions(), sampler, snapshot.getDifficulty(),
+                        snapshot.getDuplicates(), abilities, seenQuestions, historyKey())
+                : QuizSession.startForPlayer(id, snapshot.getQuestions(), sampler, seenQuestions, historyKey());
+        session.setBankVersion(snapshot.getVersion());
+        session.setSecondsPerQuestion(secondsPerQuestion);
+
+        playSound(SoundEngine.Cue.START, now);
+        showScreen(Screen.QUIZ);
+        nextQuestion();
+    }
 
-        scene.setRoot(quizLayout);
+    private void startStudy() {
+        long now = System.nanoTime();
+        QuestionBankSnapshot snapshot = bank;
+        QuizSampler sampler = new QuizSampler(new Random().nextLong());
+        session = QuizSession.startStudy(UUID.randomUUID().toString(), snapshot.getQuestions(), sampler,
+                studyScheduler, historyKey());
+        session.setBankVersion(snapshot.getVersion());
+        session.setSecondsPerQuestion(StudyScheduler.SECONDS_PER_CARD);
+
+        playSound(SoundEngine.Cue.START, now);
+        showScreen(Screen.QUIZ);
         nextQuestion();
     }
 
-    private void nextQuestion() {
-        if (currentQuestionIndex >= quizQuestions.size()) {
+    void nextQuestion() {
+        if (session.isFinished()) {
             endQuiz();
             return;
         }
 
-        questionCounter.setText("Question " + (currentQuestionIndex + 1) + " of " + quizQuestions.size());
+        questionCounter.setText("Question " + (session.getCurrentQuestionIndex() + 1) + " of " + session.size());
 
-        Question q = quizQuestions.get(currentQuestionIndex);
+        Question q = session.currentQuestion();
         updateQuestionDisplay(q);
 
         resetButtonStyles();
         enableAllButtons();
-        startTimer();
+        if (session.isStudy()) {
+            // No countdown, but the response time still grades the card
+            session.startQuestionClock(System.nanoTime());
+        } else {
+            if (room != null) {
+                room.openQuestion(session.getCurrentQuestionIndex() + 1, session.size(), q, session.getSecondsPerQuestion());
+                roomCloseNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(session.getSecondsPerQuestion())
+                        + QuizRoomServer.REVEAL_GRACE_NANOS;
+            }
+            startTimer();
+        }
     }
 
     private void updateQuestionDisplay(Question q) {
-        questionLabel.setText("Question " + (currentQuestionIndex + 1) + ": " + q.question);
+        questionLabel.setText("Question " + (session.getCurrentQuestionIndex() + 1) + ": " + q.question);
         optionButtons[0].setText("A. " + q.option_a);
         optionButtons[1].setText("B. " + q.option_b);
         optionButtons[2].setText("C. " + q.option_c);
@@ -458,154 +675,129 @@ public class BibleQuizApp extends Application {
     }
 
     private void startTimer() {
-        timeLeft = 30;
-        timerLabel.setText(timeLeft + " SECONDS");
-        timerProgress.setProgress(1.0);
-
-        // Reset styles first
-        timerProgress.setStyle(
-                "-fx-accent: #4CAF50; " +
-                        "-fx-background-radius: 5; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 5, 0, 0, 1);"
-        );
-        timerLabel.setTextFill(Color.BLACK);
-        timerIcon.setStyle("-fx-font-size: 20px;");
-
-        if (countdownTimeline != null) {
-            countdownTimeline.stop();
-        }
-
-        countdownTimeline = new Timeline(new KeyFrame(Duration.seconds(1), ev -> {
-            timeLeft--;
-            timerLabel.setText(timeLeft + " SECONDS");
-            timerProgress.setProgress(timeLeft / 30.0);
-
-            // Change timer color based on remaining time
-            if (timeLeft <= 10) {
-                timerProgress.setStyle(
-                        "-fx-accent: #FF5722; " +
-                                "-fx-background-radius: 5; " +
-                                "-fx-effect: dropshadow(three-pass-box, rgba(255,87,34,0.3), 5, 0, 0, 1);"
-                );
-                timerLabel.setTextFill(Color.web("#FF5722"));
-                timerIcon.setStyle("-fx-font-size: 20px; -fx-text-fill: #FF5722;");
-            }
+        // The question is on screen from now, whenever the session moved on to it
+        long now = System.nanoTime();
+        session.startQuestionClock(now);
+        shownSeconds = -1;
+        updateTimer(now);
+        quizClock.start();
+    }
 
-            if (timeLeft <= 0) {
-                countdownTimeline.stop();
-                playSound(timeUpSound);
-
-                // Visual feedback for time expiration
-                questionLabel.setText("TIME'S UP!");
-                questionLabel.setStyle(
-                        "-fx-font-size: 32px; " +
-                                "-fx-text-fill: #F44336; " +
-                                "-fx-font-weight: bold;"
-                );
-
-                // Disable all options
-                disableAllButtons();
-
-                // Show results after 1.5 second delay
-                PauseTransition pause = new PauseTransition(Duration.seconds(1.5));
-                pause.setOnFinished(e -> endQuiz());
-                pause.play();
+    private void updateTimer(long now) {
+        long remaining = session.remainingNanos(now);
+        timerProgress.setProgress(remaining / (double) session.getTimeLimitNanos());
+
+        // The label and colour only change when the whole seconds shown change
+        int seconds = (int) ((remaining + 999_999_999L) / 1_000_000_000L);
+        if (seconds != shownSeconds) {
+            shownSeconds = seconds;
+            timerLabel.setText(seconds + " SECONDS");
+            quizLayout.pseudoClassStateChanged(Theme.TIME_LOW, seconds <= 10);
+            if (seconds > 0 && seconds <= TICK_SECONDS) {
+                playSound(SoundEngine.Cue.TICK, now);
             }
-        }));
-        countdownTimeline.setCycleCount(timeLeft);
-        countdownTimeline.play();
+        }
+
+        if (remaining == 0) {
+            quizClock.stop();
+            telemetry.recordTimeout(session.currentQuestion());
+            logAnswer(-1, AnswerEventLog.TIMEOUT, session.getTimeLimitNanos());
+            session.timeUp();
+            playSound(SoundEngine.Cue.TIME_UP, now);
+
+            // Visual feedback for time expiration
+            questionLabel.setText("TIME'S UP!");
+            quizLayout.pseudoClassStateChanged(Theme.TIME_UP, true);
+
+            // Disable all options
+            disableAllButtons();
+
+            // Show results after 1.5 second delay
+            timeUpPause.playFromStart();
+        }
     }
 
-    private void checkAnswer(Button selectedButton) {
-        if (countdownTimeline != null) countdownTimeline.stop();
+    void checkAnswer(Button selectedButton) {
+        long now = System.nanoTime();
+        quizClock.stop();
 
-        Question current = quizQuestions.get(currentQuestionIndex);
-        String selectedOption = getSelectedOption(selectedButton);
-        boolean isCorrect = selectedOption.equals(current.answer);
+        Question current = session.currentQuestion();
+        int questionIndex = session.getCurrentQuestionIndex();
+        int selectedOption = getSelectedOption(selectedButton);
+        boolean isCorrect = session.answer(selectedOption, now);
+        telemetry.recordAnswer(current, session.getResponseNanos(questionIndex), isCorrect);
+        logAnswer(selectedOption, isCorrect ? AnswerEventLog.CORRECT : AnswerEventLog.WRONG,
+                session.getResponseNanos(questionIndex));
 
         if (isCorrect) {
-            handleCorrectAnswer(selectedButton);
+            handleCorrectAnswer(selectedButton, now);
         } else {
-            handleWrongAnswer(selectedButton, current);
+            handleWrongAnswer(selectedButton, current, now);
         }
 
         disableAllButtons();
         proceedToNextQuestionAfterDelay();
     }
 
-    private void handleCorrectAnswer(Button button) {
-        button.setStyle(
-                "-fx-background-radius: 15; " +
-                        "-fx-background-color: #4CAF50; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(76,175,80,0.5), 20, 0, 0, 0);"
-        );
-
-        score++;
-        scoreLabel.setText("🏆 SCORE: " + score);
-        playSound(correctSound);
+    // Queued for the log's writer thread; never waits for the disk.
+    private void logAnswer(int option, byte outcome, long latencyNanos) {
+        if (answerLog != null) {
+            answerLog.append(session.getId(), session.getQuestionIndex(session.getCurrentQuestionIndex()),
+                    option, outcome, latencyNanos);
+        }
     }
 
-    private void handleWrongAnswer(Button button, Question question) {
-        button.setStyle(
-                "-fx-background-radius: 15; " +
-                        "-fx-background-color: #F44336; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(244,67,54,0.5), 20, 0, 0, 0);"
-        );
+    private void handleCorrectAnswer(Button button, long pressNanos) {
+        button.pseudoClassStateChanged(Theme.CORRECT, true);
+        scoreLabel.setText("🏆 SCORE: " + session.getPoints());
+        playSound(SoundEngine.Cue.CORRECT, pressNanos);
+    }
 
+    private void handleWrongAnswer(Button button, Question question, long pressNanos) {
+        button.pseudoClassStateChanged(Theme.WRONG, true);
         highlightCorrectAnswer(question);
-        playSound(wrongSound);
+        playSound(SoundEngine.Cue.WRONG, pressNanos);
     }
 
+    // When hosting, the room keeps answering until its own clock closes the question,
+    // so a quick presenter does not cut everyone else's time short.
     private void proceedToNextQuestionAfterDelay() {
-        PauseTransition pause = new PauseTransition(Duration.millis(1500));
-        pause.setOnFinished(e -> {
-            currentQuestionIndex++;
-            nextQuestion();
-        });
-        pause.play();
+        long roomMillis = room == null || session.isStudy() ? 0
+                : TimeUnit.NANOSECONDS.toMillis(roomCloseNanos - System.nanoTime());
+        if (roomMillis > 0) {
+            timerLabel.setText("ROOM ANSWERING");
+        }
+        answerPause.setDuration(Duration.millis(ANSWER_PAUSE_MILLIS + Math.max(0, roomMillis)));
+        answerPause.playFromStart();
     }
 
-    private void playSound(AudioClip sound) {
-        if (sound != null) {
-            sound.play();
+    // pressNanos is when the player acted, on the System.nanoTime() timeline
+    private void playSound(SoundEngine.Cue cue, long pressNanos) {
+        if (sounds != null) {
+            sounds.play(cue, pressNanos);
         }
     }
 
-    private String getSelectedOption(Button button) {
+    int getSelectedOption(Button button) {
         for (int i = 0; i < optionButtons.length; i++) {
             if (button == optionButtons[i]) {
-                return "option_" + (char)('a' + i);
+                return i;
             }
         }
-        return "";
+        return -1;
     }
 
     private void highlightCorrectAnswer(Question q) {
-        for (int i = 0; i < optionButtons.length; i++) {
-            if (("option_" + (char)('a' + i)).equals(q.answer)) {
-                optionButtons[i].setStyle(
-                        "-fx-background-radius: 15; " +
-                                "-fx-background-color: #4CAF50; " +
-                                "-fx-text-fill: white; " +
-                                "-fx-effect: dropshadow(three-pass-box, rgba(76,175,80,0.5), 15, 0, 0, 0);"
-                );
-                break;
-            }
+        int correctIndex = q.answerIndex();
+        if (correctIndex >= 0) {
+            optionButtons[correctIndex].pseudoClassStateChanged(Theme.CORRECT, true);
         }
     }
 
     private void resetButtonStyles() {
-        String color = "#3F51B5";
-
         for (Button btn : optionButtons) {
-            btn.setStyle(
-                    "-fx-background-radius: 15; " +
-                            "-fx-background-color: " + color + "; " +
-                            "-fx-text-fill: white; " +
-                            "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 10, 0, 0, 3);"
-            );
+            btn.pseudoClassStateChanged(Theme.CORRECT, false);
+            btn.pseudoClassStateChanged(Theme.WRONG, false);
             btn.setDisable(false);
         }
     }
@@ -622,32 +814,58 @@ public class BibleQuizApp extends Application {
         }
     }
 
-    private void endQuiz() {
-        // Reset question label style if changed by timeout
-        questionLabel.setStyle(
-                "-fx-font-size: 22px; " +
-                        "-fx-text-fill: #37474f; " +
-                        "-fx-font-weight: bold;"
-        );
+    void endQuiz() {
+        playSound(SoundEngine.Cue.FINISH, System.nanoTime());
+        if (room != null && !session.isStudy()) {
+            room.endQuiz();
+        }
+        telemetry.recordSession(session);
+        if (session.getBankVersion() == bank.getVersion()) {
+            seenQuestions.markSeen(session.getPlayerId(), session.getServedIndices());
+        }
+        if (leaderboards != null && !session.isStudy()) {
+            leaderboards.submit(event, playerId, session.getPoints(), session.getScore(), session.getId());
+        }
 
-        // Create score screen
-        Pane backgroundPane = new Pane();
-        double percentage = (double) score / quizQuestions.size();
+        showScreen(Screen.SCORE);
+    }
 
-        // Set performance-based background
-        if (percentage >= 0.8) {
-            backgroundPane.setStyle(
-                    "-fx-background-color: linear-gradient(to bottom right, #e8f5e9, #c8e6c9);"
-            );
-        } else if (percentage >= 0.6) {
-            backgroundPane.setStyle(
-                    "-fx-background-color: linear-gradient(to bottom right, #fff8e1, #ffecb3);"
-            );
-        } else {
-            backgroundPane.setStyle(
-                    "-fx-background-color: linear-gradient(to bottom right, #ffebee, #ffcdd2);"
-            );
+    // Each screen is built on first use and afterwards only re-bound to the current
+    // session, so back-to-back games do not rebuild the scene graph.
+    private void showScreen(Screen screen) {
+        long start = System.nanoTime();
+        long allocated = TRACE_SCREENS ? allocatedBytes() : 0;
+        Parent root = switch (screen) {
+            case WELCOME -> welcomeLayout;
+            case QUIZ -> {
+                if (quizLayout == null) {
+                    createQuizScreen();
+                }
+                resetQuizScreen();
+                yield quizLayout;
+            }
+            case SCORE -> {
+                if (scoreLayout == null) {
+                    createScoreScreen();
+                }
+                bindScoreScreen();
+                yield scoreLayout;
+            }
+        };
+        scene.setRoot(root);
+        if (TRACE_SCREENS) {
+            System.out.printf("screen=%s switch_ms=%.3f allocated_kb=%d%n", screen.name().toLowerCase(),
+                    (System.nanoTime() - start) / 1e6, (allocatedBytes() - allocated) / 1024);
         }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    void createScoreScreen() {
+        scoreBackground = new Pane();
+        scoreBackground.getStyleClass().add("score-background");
 
         // Main content container
         VBox mainContent = new VBox(20);
@@ -655,78 +873,67 @@ public class BibleQuizApp extends Application {
         mainContent.setPadding(new Insets(30));
 
         // Performance emoji
-        Label scoreEmoji = new Label(getPerformanceEmoji());
-        scoreEmoji.setStyle("-fx-font-size: 80px;");
+        scoreEmoji = new Label();
+        scoreEmoji.getStyleClass().add("score-emoji");
 
         // Results card
         VBox resultsCard = new VBox(15);
         resultsCard.setAlignment(Pos.CENTER);
         resultsCard.setMaxWidth(500);
         resultsCard.setPadding(new Insets(25));
-        resultsCard.setStyle(
-                "-fx-background-color: white; " +
-                        "-fx-background-radius: 15; " +
-                        "-fx-border-color: #b0bec5; " +
-                        "-fx-border-width: 1; " +
-                        "-fx-border-radius: 15; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 10, 0, 0, 5);"
-        );
+        resultsCard.getStyleClass().add("results-card");
 
         // Score title
         Label scoreTitle = new Label("QUIZ RESULTS");
-        scoreTitle.setStyle(
-                "-fx-font-size: 28px; " +
-                        "-fx-font-weight: bold; " +
-                        "-fx-text-fill: #37474f;"
-        );
+        scoreTitle.getStyleClass().add("results-title");
 
         // Score display
-        double percentageScore = (double) score / quizQuestions.size() * 100;
-        Label scoreText = new Label(String.format("%d/%d (%.1f%%)",
-                score, quizQuestions.size(), percentageScore));
-        scoreText.setStyle(
-                "-fx-font-size: 32px; " +
-                        "-fx-font-weight: bold; " +
-                        "-fx-text-fill: #263238;"
-        );
+        scoreText = new Label();
+        scoreText.getStyleClass().add("results-score");
 
         // Performance message
-        Label performanceMsg = new Label(getPerformanceMessage(percentageScore));
-        performanceMsg.setStyle(
-                "-fx-font-size: 18px; " +
-                        "-fx-text-fill: #455a64; " +
-                        "-fx-font-style: italic; " +
-                        "-fx-alignment: center; " +
-                        "-fx-wrap-text: true; " +
-                        "-fx-padding: 0 20;"
-        );
+        performanceMsg = new Label();
+        performanceMsg.getStyleClass().add("results-message");
         performanceMsg.setMaxWidth(450);
 
-        resultsCard.getChildren().addAll(scoreTitle, scoreText, performanceMsg);
+        // Challenge code lets friends replay exactly the same questions
+        challengeLabel = new Label();
+        challengeLabel.getStyleClass().add("challenge-label");
+
+        // Speed-weighted points and how quickly the player answered
+        pointsLabel = new Label();
+        pointsLabel.getStyleClass().add("results-points");
+
+        // Where the player's best result stands on the leaderboard
+        rankLabel = new Label();
+        rankLabel.getStyleClass().add("results-rank");
+
+        resultsCard.getChildren().addAll(scoreTitle, scoreText, pointsLabel, rankLabel, performanceMsg, challengeLabel);
 
         // Action buttons
         VBox buttonBox = new VBox(15);
         buttonBox.setAlignment(Pos.CENTER);
         buttonBox.setPadding(new Insets(20, 0, 0, 0));
 
-        Button homeButton = createActionButton("HOME", "#2196F3");
+        Button homeButton = createActionButton("HOME", "home-button");
         homeButton.setPrefWidth(220);
-        homeButton.setOnAction(e -> {
-            // Reset to welcome screen
-            scene.setRoot(welcomeLayout);
-        });
+        homeButton.setOnAction(e -> showScreen(Screen.WELCOME));
 
-        Button restartButton = createActionButton("PLAY AGAIN", "#4CAF50");
+        Button restartButton = createActionButton("PLAY AGAIN", "restart-button");
         restartButton.setPrefWidth(220);
         restartButton.setOnAction(e -> {
-            score = 0;
-            scoreLabel.setText("🏆 SCORE: " + score);
             PauseTransition delay = new PauseTransition(Duration.seconds(0.5));
-            delay.setOnFinished(event -> startQuiz());
+            delay.setOnFinished(event -> {
+                if (session.isStudy()) {
+                    startStudy();
+                } else {
+                    startQuiz();
+                }
+            });
             delay.play();
         });
 
-        Button exitButton = createActionButton("EXIT", "#F44336");
+        Button exitButton = createActionButton("EXIT", "exit-button");
         exitButton.setPrefWidth(220);
         exitButton.setOnAction(e -> Platform.exit());
 
@@ -736,14 +943,42 @@ public class BibleQuizApp extends Application {
         mainContent.getChildren().addAll(scoreEmoji, resultsCard, buttonBox);
 
         scoreLayout = new StackPane();
-        scoreLayout.getChildren().addAll(backgroundPane, mainContent);
+        scoreLayout.getChildren().addAll(scoreBackground, mainContent);
+    }
+
+    void bindScoreScreen() {
+        double percentage = session.getPercentage();
 
-        // Switch to score screen
-        scene.setRoot(scoreLayout);
+        // Set performance-based background
+        scoreBackground.pseudoClassStateChanged(Theme.EXCELLENT, percentage >= 0.8);
+        scoreBackground.pseudoClassStateChanged(Theme.GOOD, percentage >= 0.6 && percentage < 0.8);
+        scoreBackground.pseudoClassStateChanged(Theme.POOR, percentage < 0.6);
+
+        scoreEmoji.setText(getPerformanceEmoji());
+        double percentageScore = percentage * 100;
+        scoreText.setText(String.format("%d/%d (%.1f%%)", session.getScore(), session.size(), percentageScore));
+        performanceMsg.setText(getPerformanceMessage(percentageScore));
+        if (session.isStudy()) {
+            pointsLabel.setText(String.format("%d cards in your study deck · %.1f s average answer",
+                    studyScheduler.size(session.getPlayerId()), session.getAverageResponseMillis() / 1000));
+        } else {
+            pointsLabel.setText(String.format("%d points · %.1f s average answer",
+                    session.getPoints(), session.getAverageResponseMillis() / 1000));
+        }
+        String board = event != null ? event : LeaderboardStore.GLOBAL;
+        int rank = leaderboards == null || session.isStudy() ? -1 : leaderboards.rankOf(board, playerId);
+        rankLabel.setText(rank > 0 ? String.format("Rank #%d of %d", rank, leaderboards.size(board)) : "");
+        rankLabel.setVisible(rank > 0);
+        rankLabel.setManaged(rank > 0);
+
+        String challengeCode = session.getChallengeCode();
+        challengeLabel.setText(challengeCode != null ? "Challenge code: " + challengeCode : "");
+        challengeLabel.setVisible(challengeCode != null);
+        challengeLabel.setManaged(challengeCode != null);
     }
 
     private String getPerformanceEmoji() {
-        double percentage = (double) score / quizQuestions.size();
+        double percentage = session.getPercentage();
         if (percentage >= 0.9) return "🏆";
         else if (percentage >= 0.8) return "🎉";
         else if (percentage >= 0.7) return "👏";
@@ -759,42 +994,9 @@ public class BibleQuizApp extends Application {
         else return "Keep studying! The Bible has so much to offer!";
     }
 
-    private Button createActionButton(String text, String color) {
+    private Button createActionButton(String text, String styleClass) {
         Button button = new Button(text);
-        button.setStyle(
-                "-fx-font-size: 18px; " +
-                        "-fx-font-weight: bold; " +
-                        "-fx-padding: 15 30; " +
-                        "-fx-background-radius: 25; " +
-                        "-fx-background-color: " + color + "; " +
-                        "-fx-text-fill: white; " +
-                        "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 10, 0, 0, 5);"
-        );
-
-        button.setOnMouseEntered(e -> {
-            button.setStyle(
-                    "-fx-font-size: 18px; " +
-                            "-fx-font-weight: bold; " +
-                            "-fx-padding: 15 30; " +
-                            "-fx-background-radius: 25; " +
-                            "-fx-background-color: derive(" + color + ", 20%); " +
-                            "-fx-text-fill: white; " +
-                            "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.3), 15, 0, 0, 8);"
-            );
-        });
-
-        button.setOnMouseExited(e -> {
-            button.setStyle(
-                    "-fx-font-size: 18px; " +
-                            "-fx-font-weight: bold; " +
-                            "-fx-padding: 15 30; " +
-                            "-fx-background-radius: 25; " +
-                            "-fx-background-color: " + color + "; " +
-                            "-fx-text-fill: white; " +
-                            "-fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.2), 10, 0, 0, 5);"
-            );
-        });
-
+        button.getStyleClass().addAll("action-button", styleClass);
         return button;
     }
 
@@ -806,13 +1008,8 @@ public class BibleQuizApp extends Application {
 
         // Style the alert
         DialogPane dialogPane = alert.getDialogPane();
-        dialogPane.setStyle(
-                "-fx-background-color: white; " +
-                        "-fx-border-color: #2196F3; " +
-                        "-fx-border-width: 2px; " +
-                        "-fx-border-radius: 10px; " +
-                        "-fx-background-radius: 10px;"
-        );
+        dialogPane.getStyleClass().add("quiz-alert");
+        theme.apply(dialogPane);
 
         alert.showAndWait();
     }
@@ -821,12 +1018,3 @@ public class BibleQuizApp extends Application {
         launch(args);
     }
 }
-
-class Question {
-    public String question;
-    public String option_a;
-    public String option_b;
-    public String option_c;
-    public String option_d;
-    public String answer;
-}
\ No newline at end of file
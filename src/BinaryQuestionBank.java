@@ -0,0 +1,251 @@
+package src;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+// Compact read-only question bank, memory mapped so opening it costs the same
+// for ten questions or ten million and several JVMs share one page cache copy.
+//
+// Layout (big endian):
+//   header   magic "BQBK", int version, int count, int reserved, long tableOffset
+//   records  byte answerIndex, then question, option_a..option_d as
+//            (unsigned short length, UTF-8 bytes); version 2 adds testament,
+//            book, difficulty (empty = not set), unsigned short chapter,
+//            unsigned byte tag count and the tags
+//   table    count x int record offsets
+//
+// Questions are only decoded when get() is called, e.g. when a quiz picks them.
+public class BinaryQuestionBank implements Closeable {
+
+    public static final int MAGIC = 0x4251424B; // "BQBK"
+    public static final int VERSION = 2;
+    public static final int HEADER_SIZE = 24;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int tableOffset;
+    private final int version;
+
+    private BinaryQuestionBank(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary question bank");
+        }
+        this.version = buffer.getInt(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported bank version " + version);
+        }
+        this.count = buffer.getInt(8);
+        long table = buffer.getLong(16);
+        if (count < 0 || table < HEADER_SIZE || table + (long) count * 4 > buffer.capacity()) {
+            throw new IOException("Corrupt bank header");
+        }
+        this.tableOffset = (int) table;
+    }
+
+    public static BinaryQuestionBank open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Bank larger than 2 GB is not supported");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new BinaryQuestionBank(channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Question get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Question " + index + " of " + count);
+        }
+        // Absolute reads only, so concurrent sessions can share the buffer.
+        int offset = buffer.getInt(tableOffset + index * 4);
+        Question q = new Question();
+        q.answer = Question.ANSWER_KEYS[buffer.get(offset)];
+        offset++;
+        q.question = readString(offset);
+        offset += 2 + length(offset);
+        q.option_a = readString(offset);
+        offset += 2 + length(offset);
+        q.option_b = readString(offset);
+        offset += 2 + length(offset);
+        q.option_c = readString(offset);
+        offset += 2 + length(offset);
+        q.option_d = readString(offset);
+        if (version >= 2) {
+            offset += 2 + length(offset);
+            q.testament = readOptionalString(offset);
+            offset += 2 + length(offset);
+            q.book = readOptionalString(offset);
+            offset += 2 + length(offset);
+            q.difficulty = readOptionalString(offset);
+            offset += 2 + length(offset);
+            q.chapter = Short.toUnsignedInt(buffer.getShort(offset));
+            offset += 2;
+            int tagCount = Byte.toUnsignedInt(buffer.get(offset));
+            offset++;
+            if (tagCount > 0) {
+                q.tags = new String[tagCount];
+                for (int i = 0; i < tagCount; i++) {
+                    q.tags[i] = readString(offset);
+                    offset += 2 + length(offset);
+                }
+            }
+        }
+        return q;
+    }
+
+    // Lazy list view, so existing List<Question> callers only decode what they touch.
+    public List<Question> asList() {
+        return new QuestionListView();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int length(int offset) {
+        return Short.toUnsignedInt(buffer.getShort(offset));
+    }
+
+    private String readString(int offset) {
+        int length = length(offset);
+        byte[] bytes = new byte[length];
+        buffer.get(offset + 2, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String readOptionalString(int offset) {
+        return length(offset) == 0 ? null : readString(offset);
+    }
+
+    private class QuestionListView extends AbstractList<Question> implements RandomAccess {
+        @Override
+        public Question get(int index) {
+            return BinaryQuestionBank.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+    // Writes questions in a single streaming pass: records first, then the offset
+    // table, then the header is patched with the final count.
+    public static class Writer implements Closeable, Consumer<Question> {
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private int[] offsets = new int[1024];
+        private int count = 0;
+        private long position = HEADER_SIZE;
+
+        public Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        @Override
+        public void accept(Question q) {
+            try {
+                write(q);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void write(Question q) throws IOException {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Bank larger than 2 GB is not supported");
+            }
+            offsets[count++] = (int) position;
+            out.writeByte(q.answerIndex());
+            position += 1;
+            position += writeString(q.question);
+            position += writeString(q.option_a);
+            position += writeString(q.option_b);
+            position += writeString(q.option_c);
+            position += writeString(q.option_d);
+            position += writeString(q.testament == null ? "" : q.testament);
+            position += writeString(q.book == null ? "" : q.book);
+            position += writeString(q.difficulty == null ? "" : q.difficulty);
+            if (q.chapter < 0 || q.chapter > 0xFFFF) {
+                throw new IOException("Chapter out of range: " + q.chapter);
+            }
+            out.writeShort(q.chapter);
+            int tagCount = q.tags == null ? 0 : q.tags.length;
+            if (tagCount > 255) {
+                throw new IOException("More than 255 tags on: " + q.question);
+            }
+            out.writeByte(tagCount);
+            position += 3;
+            for (int i = 0; i < tagCount; i++) {
+                position += writeString(q.tags[i]);
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteBuffer table = ByteBuffer.allocate(4096);
+                for (int i = 0; i < count; i++) {
+                    if (!table.hasRemaining()) {
+                        out.write(table.array(), 0, table.position());
+                        table.clear();
+                    }
+                    table.putInt(offsets[i]);
+                }
+                out.write(table.array(), 0, table.position());
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(position);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private int writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IOException("Text longer than 65535 bytes: " + s.substring(0, 40) + "...");
+            }
+            out.writeShort(bytes.length);
+            out.write(bytes);
+            return 2 + bytes.length;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package src;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+// Column-oriented question bank. Every distinct string ("Moses", "Jerusalem", ...)
+// is stored once in a shared dictionary; questions are rows of int ids plus one
+// byte for the correct option. Callers read rows through asList(), as Question
+// objects built on access whose fields point into the dictionary.
+// Optional metadata (testament, book, difficulty, tags) uses the same dictionary,
+// with -1 for "not set"; tags are stored CSR style as one flat id column.
+public class ColumnarQuestionStore {
+
+    private static final int TESTAMENT = 0;
+    private static final int BOOK = 1;
+    private static final int DIFFICULTY = 2;
+    private static final int META_COLUMNS = 3;
+
+    private final String[] dictionary;
+    private final int[] questionIds;
+    private final int[] optionIds;
+    private final byte[] answers;
+    private final int[] metaIds;
+    private final int[] chapters;
+    private final int[] tagStarts;
+    private final int[] tagIds;
+    private final int size;
+
+    private ColumnarQuestionStore(Builder builder) {
+        int n = builder.size;
+        this.dictionary = builder.strings.toArray(new String[0]);
+        this.questionIds = Arrays.copyOf(builder.questionIds, n);
+        this.optionIds = Arrays.copyOf(builder.optionIds, n * 4);
+        this.answers = Arrays.copyOf(builder.answers, n);
+        this.metaIds = Arrays.copyOf(builder.metaIds, n * META_COLUMNS);
+        this.chapters = Arrays.copyOf(builder.chapters, n);
+        this.tagStarts = Arrays.copyOf(builder.tagStarts, n + 1);
+        this.tagIds = Arrays.copyOf(builder.tagIds, builder.tagStarts[n]);
+        this.size = n;
+    }
+
+    public static ColumnarQuestionStore of(Collection<Question> questions) {
+        Builder builder = new Builder(questions.size());
+        questions.forEach(builder);
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    // Builds a Question whose fields point into the shared dictionary, so no text is copied.
+    public Question toQuestion(int index) {
+        checkIndex(index);
+        Question q = new Question();
+        int base = index * 4;
+        q.question = dictionary[questionIds[index]];
+        q.option_a = dictionary[optionIds[base]];
+        q.option_b = dictionary[optionIds[base + 1]];
+        q.option_c = dictionary[optionIds[base + 2]];
+        q.option_d = dictionary[optionIds[base + 3]];
+        q.answer = Question.ANSWER_KEYS[answers[index]];
+        q.testament = lookup(metaIds[index * META_COLUMNS + TESTAMENT]);
+        q.book = lookup(metaIds[index * META_COLUMNS + BOOK]);
+        q.difficulty = lookup(metaIds[index * META_COLUMNS + DIFFICULTY]);
+        q.chapter = chapters[index];
+        int tagCount = tagStarts[index + 1] - tagStarts[index];
+        if (tagCount > 0) {
+            q.tags = new String[tagCount];
+            for (int i = 0; i < tagCount; i++) {
+                q.tags[i] = dictionary[tagIds[tagStarts[index] + i]];
+            }
+        }
+        return q;
+    }
+
+    private String lookup(int id) {
+        return id < 0 ? null : dictionary[id];
+    }
+
+    // List view for code that works on List<Question>; rows are materialised on access.
+    public List<Question> asList() {
+        return new QuestionListView();
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Question " + index + " of " + size);
+        }
+        return index;
+    }
+
+    private class QuestionListView extends AbstractList<Question> implements RandomAccess {
+        @Override
+        public Question get(int index) {
+            return toQuestion(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    // Interns strings while questions are streamed in, then freezes the columns.
+    public static class Builder implements Consumer<Question> {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int[] questionIds;
+        private int[] optionIds;
+        private byte[] answers;
+        private int[] metaIds;
+        private int[] chapters;
+        private int[] tagStarts;
+        private int[] tagIds = new int[16];
+        private int size = 0;
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            questionIds = new int[capacity];
+            optionIds = new int[capacity * 4];
+            answers = new byte[capacity];
+            metaIds = new int[capacity * META_COLUMNS];
+            chapters = new int[capacity];
+            tagStarts = new int[capacity + 1];
+        }
+
+        @Override
+        public void accept(Question q) {
+            add(q);
+        }
+
+        public Builder add(Question q) {
+            int answerIndex = q.answerIndex();
+            if (answerIndex < 0) {
+                throw new IllegalArgumentException("Invalid answer '" + q.answer + "' for: " + q.question);
+            }
+            if (size == answers.length) {
+                int capacity = size * 2;
+                questionIds = Arrays.copyOf(questionIds, capacity);
+                optionIds = Arrays.copyOf(optionIds, capacity * 4);
+                answers = Arrays.copyOf(answers, capacity);
+                metaIds = Arrays.copyOf(metaIds, capacity * META_COLUMNS);
+                chapters = Arrays.copyOf(chapters, capacity);
+                tagStarts = Arrays.copyOf(tagStarts, capacity + 1);
+            }
+            questionIds[size] = intern(q.question);
+            for (int i = 0; i < 4; i++) {
+                optionIds[size * 4 + i] = intern(q.option(i));
+            }
+            answers[size] = (byte) answerIndex;
+            metaIds[size * META_COLUMNS + TESTAMENT] = internOptional(q.testament);
+            metaIds[size * META_COLUMNS + BOOK] = internOptional(q.book);
+            metaIds[size * META_COLUMNS + DIFFICULTY] = internOptional(q.difficulty);
+            chapters[size] = q.chapter;
+            int tagEnd = tagStarts[size];
+            if (q.tags != null) {
+                if (tagEnd + q.tags.length > tagIds.length) {
+                    tagIds = Arrays.copyOf(tagIds, Math.max(tagIds.length * 2, tagEnd + q.tags.length));
+                }
+                for (String tag : q.tags) {
+                    tagIds[tagEnd++] = intern(tag);
+                }
+            }
+            size++;
+            tagStarts[size] = tagEnd;
+            return this;
+        }
+
+        public ColumnarQuestionStore build() {
+            return new ColumnarQuestionStore(this);
+        }
+
+        private int internOptional(String s) {
+            return s == null ? -1 : intern(s);
+        }
+
+        private int intern(String s) {
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = strings.size();
+                ids.put(s, id);
+                strings.add(s);
+            }
+            return id;
+        }
+    }
+}
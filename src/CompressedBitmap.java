@@ -0,0 +1,754 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Roaring-style compressed set of non-negative ints. Values are split by their
+// high 16 bits into chunks; each chunk is stored as a sorted array (sparse), a
+// 65536-bit bitmap (dense) or a list of runs (consecutive ranges), whichever is
+// smallest. Used for per-player "already seen" question sets.
+public class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final byte ARRAY = 0;
+    private static final byte BITMAP = 1;
+    private static final byte RUN = 2;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size = 0;
+
+    public boolean contains(int value) {
+        int i = find((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value " + value);
+        }
+        char key = (char) (value >>> 16);
+        int i = find(key);
+        if (i < 0) {
+            i = -i - 1;
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+            }
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(containers, i, containers, i + 1, size - i);
+            keys[i] = key;
+            containers[i] = new ArrayContainer();
+            size++;
+        }
+        containers[i] = containers[i].add((char) value);
+    }
+
+    public void addAll(int[] values) {
+        for (int value : values) {
+            add(value);
+        }
+    }
+
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    // Number of values <= value.
+    public int rank(int value) {
+        if (value < 0) {
+            return 0;
+        }
+        char key = (char) (value >>> 16);
+        int total = 0;
+        for (int i = 0; i < size && keys[i] <= key; i++) {
+            total += keys[i] < key ? containers[i].cardinality() : containers[i].rank((char) value);
+        }
+        return total;
+    }
+
+    // Returns the p-th (0-based) non-negative int that is NOT in the set. Cost depends
+    // on the number of chunks, not on how many values are set.
+    public int selectZero(int p) {
+        int setBefore = 0;
+        for (int i = 0; i < size; i++) {
+            int base = keys[i] << 16;
+            int zerosBefore = base - setBefore;
+            if (p < zerosBefore) {
+                break;
+            }
+            Container c = containers[i];
+            int zerosInChunk = CHUNK_SIZE - c.cardinality();
+            if (p < zerosBefore + zerosInChunk) {
+                return base + c.selectZero(p - zerosBefore);
+            }
+            setBefore += c.cardinality();
+        }
+        return p + setBefore;
+    }
+
+    // Returns the p-th (0-based) smallest value in the set.
+    public int select(int p) {
+        for (int i = 0; i < size; i++) {
+            int cardinality = containers[i].cardinality();
+            if (p < cardinality) {
+                return (keys[i] << 16) | containers[i].select(p);
+            }
+            p -= cardinality;
+        }
+        throw new IndexOutOfBoundsException("Only " + cardinality() + " values");
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int base = keys[i] << 16;
+            containers[i].forEach(v -> action.accept(base | v));
+        }
+    }
+
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                result.append(a.keys[i], and(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j >= b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.append(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i >= a.size || a.keys[i] > b.keys[j]) {
+                result.append(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.append(a.keys[i], or(a.containers[i], b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    // Values in a that are not in b.
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap result = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            boolean overlaps = j < b.size && b.keys[j] == a.keys[i];
+            result.append(a.keys[i], overlaps ? andNot(a.containers[i], b.containers[j]) : a.containers[i].copy());
+        }
+        return result;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap copy = new CompressedBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(4, size));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    // Converts every chunk to its smallest representation; call before persisting.
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) {
+            containers[i] = containers[i].optimize();
+        }
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            containers[i].write(out);
+        }
+    }
+
+    public static CompressedBitmap read(DataInput in) throws IOException {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        int count = in.readInt();
+        if (count < 0 || count > CHUNK_SIZE) {
+            throw new IOException("Corrupt bitmap: " + count + " chunks");
+        }
+        bitmap.keys = new char[Math.max(4, count)];
+        bitmap.containers = new Container[Math.max(4, count)];
+        for (int i = 0; i < count; i++) {
+            bitmap.keys[i] = in.readChar();
+            byte type = in.readByte();
+            switch (type) {
+                case ARRAY: bitmap.containers[i] = ArrayContainer.read(in); break;
+                case BITMAP: bitmap.containers[i] = BitmapContainer.read(in); break;
+                case RUN: bitmap.containers[i] = RunContainer.read(in); break;
+                default: throw new IOException("Corrupt bitmap: container type " + type);
+            }
+        }
+        bitmap.size = count;
+        return bitmap;
+    }
+
+    // Adds a chunk after all existing ones; empty chunks are dropped.
+    private void append(char key, Container container) {
+        if (container.cardinality() == 0) {
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        keys[size] = key;
+        containers[size] = container;
+        size++;
+    }
+
+    // Chunk-level set operations. Intersections with an array just probe the other
+    // side; everything else is done word by word on 64K-bit bitmaps and shrunk back
+    // to an array when the result is sparse.
+    private static Container and(Container a, Container b) {
+        if (a instanceof ArrayContainer || b instanceof ArrayContainer) {
+            Container small = a instanceof ArrayContainer ? a : b;
+            Container other = small == a ? b : a;
+            return filter(small, other, true);
+        }
+        long[] x = words(a);
+        long[] y = words(b);
+        BitmapContainer result = new BitmapContainer();
+        for (int i = 0; i < result.words.length; i++) {
+            result.words[i] = x[i] & y[i];
+            result.cardinality += Long.bitCount(result.words[i]);
+        }
+        return result.shrink();
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer
+                && a.cardinality() + b.cardinality() <= ARRAY_MAX) {
+            return merge((ArrayContainer) a, (ArrayContainer) b);
+        }
+        if (!(a instanceof BitmapContainer) && b instanceof BitmapContainer) {
+            Container swap = a;
+            a = b;
+            b = swap;
+        }
+        BitmapContainer result = a instanceof BitmapContainer
+                ? (BitmapContainer) a.copy() : BitmapContainer.from(a);
+        if (b instanceof BitmapContainer) {
+            long[] y = ((BitmapContainer) b).words;
+            result.cardinality = 0;
+            for (int i = 0; i < result.words.length; i++) {
+                result.words[i] |= y[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+        } else {
+            b.forEach(v -> result.add((char) v));
+        }
+        return result;
+    }
+
+    private static ArrayContainer merge(ArrayContainer a, ArrayContainer b) {
+        ArrayContainer result = new ArrayContainer();
+        result.values = new char[Math.max(4, a.cardinality + b.cardinality)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.cardinality && j < b.cardinality) {
+            char x = a.values[i];
+            char y = b.values[j];
+            if (x <= y) {
+                i++;
+                if (x == y) {
+                    j++;
+                }
+            } else {
+                j++;
+            }
+            result.values[n++] = x <= y ? x : y;
+        }
+        while (i < a.cardinality) {
+            result.values[n++] = a.values[i++];
+        }
+        while (j < b.cardinality) {
+            result.values[n++] = b.values[j++];
+        }
+        result.cardinality = n;
+        return result;
+    }
+
+    private static Container andNot(Container a, Container b) {
+        if (a instanceof ArrayContainer) {
+            return filter(a, b, false);
+        }
+        long[] x = words(a);
+        long[] y = words(b);
+        BitmapContainer result = new BitmapContainer();
+        for (int i = 0; i < result.words.length; i++) {
+            result.words[i] = x[i] & ~y[i];
+            result.cardinality += Long.bitCount(result.words[i]);
+        }
+        return result.shrink();
+    }
+
+    private static Container filter(Container source, Container other, boolean keepContained) {
+        ArrayContainer result = new ArrayContainer();
+        result.values = new char[Math.max(4, source.cardinality())];
+        source.forEach(v -> {
+            if (other.contains((char) v) == keepContained) {
+                result.values[result.cardinality++] = (char) v;
+            }
+        });
+        return result;
+    }
+
+    // Read-only word view of a chunk.
+    private static long[] words(Container c) {
+        if (c instanceof BitmapContainer) {
+            return ((BitmapContainer) c).words;
+        }
+        long[] words = new long[CHUNK_SIZE / 64];
+        c.forEach(v -> words[v >>> 6] |= 1L << v);
+        return words;
+    }
+
+    private int find(char key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) low = mid + 1;
+            else if (keys[mid] > key) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        // May return a different container type when the chunk outgrows this one.
+        abstract Container add(char value);
+
+        // Number of values <= value.
+        abstract int rank(char value);
+
+        // p-th low value in [0, 65536) that is not set.
+        abstract int selectZero(int p);
+
+        // p-th smallest value that is set.
+        abstract int select(int p);
+
+        abstract Container optimize();
+
+        abstract Container copy();
+
+        abstract void write(DataOutput out) throws IOException;
+
+        abstract void forEach(IntConsumer action);
+
+        Container optimizeRuns() {
+            int[] count = {0};
+            int[] previous = {-2};
+            forEach(v -> {
+                if (v != previous[0] + 1) {
+                    count[0]++;
+                }
+                previous[0] = v;
+            });
+            int runBytes = 2 + count[0] * 4;
+            int arrayBytes = 2 + cardinality() * 2;
+            int bitmapBytes = 8192;
+            if (runBytes < Math.min(arrayBytes, bitmapBytes)) {
+                return RunContainer.from(this, count[0]);
+            }
+            return arrayBytes <= bitmapBytes ? ArrayContainer.from(this) : BitmapContainer.from(this);
+        }
+    }
+
+    private static class ArrayContainer extends Container {
+        private char[] values = new char[4];
+        private int cardinality = 0;
+
+        static ArrayContainer from(Container source) {
+            if (source instanceof ArrayContainer) {
+                return (ArrayContainer) source;
+            }
+            ArrayContainer array = new ArrayContainer();
+            array.values = new char[Math.max(4, source.cardinality())];
+            source.forEach(v -> array.values[array.cardinality++] = (char) v);
+            return array;
+        }
+
+        static ArrayContainer read(DataInput in) throws IOException {
+            ArrayContainer array = new ArrayContainer();
+            int count = in.readUnsignedShort() + 1;
+            array.values = new char[count];
+            for (int i = 0; i < count; i++) {
+                array.values[i] = in.readChar();
+            }
+            array.cardinality = count;
+            return array;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return BitmapContainer.from(this).add(value);
+            }
+            i = -i - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        int rank(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            return i >= 0 ? i + 1 : -i - 1;
+        }
+
+        @Override
+        int selectZero(int p) {
+            int x = p;
+            for (int i = 0; i < cardinality && values[i] <= x; i++) {
+                x++;
+            }
+            return x;
+        }
+
+        @Override
+        int select(int p) {
+            return values[p];
+        }
+
+        @Override
+        Container optimize() {
+            return optimizeRuns();
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer copy = new ArrayContainer();
+            copy.values = Arrays.copyOf(values, Math.max(4, cardinality));
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(ARRAY);
+            out.writeShort(cardinality - 1);
+            for (int i = 0; i < cardinality; i++) {
+                out.writeChar(values[i]);
+            }
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(values[i]);
+            }
+        }
+    }
+
+    private static class BitmapContainer extends Container {
+        private final long[] words = new long[CHUNK_SIZE / 64];
+        private int cardinality = 0;
+
+        static BitmapContainer from(Container source) {
+            if (source instanceof BitmapContainer) {
+                return (BitmapContainer) source;
+            }
+            BitmapContainer bitmap = new BitmapContainer();
+            source.forEach(v -> bitmap.words[v >>> 6] |= 1L << v);
+            bitmap.cardinality = source.cardinality();
+            return bitmap;
+        }
+
+        static BitmapContainer read(DataInput in) throws IOException {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < bitmap.words.length; i++) {
+                bitmap.words[i] = in.readLong();
+                bitmap.cardinality += Long.bitCount(bitmap.words[i]);
+            }
+            return bitmap;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            long after = before | (1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        int rank(char value) {
+            int word = value >>> 6;
+            int total = 0;
+            for (int i = 0; i < word; i++) {
+                total += Long.bitCount(words[i]);
+            }
+            long mask = (value & 63) == 63 ? -1L : (1L << ((value & 63) + 1)) - 1;
+            return total + Long.bitCount(words[word] & mask);
+        }
+
+        @Override
+        int selectZero(int p) {
+            for (int i = 0; i < words.length; i++) {
+                long zeros = ~words[i];
+                int count = Long.bitCount(zeros);
+                if (p < count) {
+                    for (int j = 0; j < p; j++) {
+                        zeros &= zeros - 1;
+                    }
+                    return i * 64 + Long.numberOfTrailingZeros(zeros);
+                }
+                p -= count;
+            }
+            throw new IllegalStateException("Chunk has no more zeros");
+        }
+
+        @Override
+        int select(int p) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                int count = Long.bitCount(word);
+                if (p < count) {
+                    for (int j = 0; j < p; j++) {
+                        word &= word - 1;
+                    }
+                    return i * 64 + Long.numberOfTrailingZeros(word);
+                }
+                p -= count;
+            }
+            throw new IndexOutOfBoundsException("Chunk has " + cardinality + " values");
+        }
+
+        Container shrink() {
+            return cardinality <= ARRAY_MAX ? ArrayContainer.from(this) : this;
+        }
+
+        @Override
+        Container optimize() {
+            return optimizeRuns();
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer copy = new BitmapContainer();
+            System.arraycopy(words, 0, copy.words, 0, words.length);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(BITMAP);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(i * 64 + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    // Read-only ranges of consecutive values; converted back on the first add.
+    private static class RunContainer extends Container {
+        private char[] starts;
+        private char[] lengths; // run length minus one
+        private int runCount;
+        private int cardinality;
+
+        static RunContainer from(Container source, int runCount) {
+            RunContainer runs = new RunContainer();
+            runs.starts = new char[runCount];
+            runs.lengths = new char[runCount];
+            int[] previous = {-2};
+            source.forEach(v -> {
+                if (v != previous[0] + 1) {
+                    runs.starts[runs.runCount++] = (char) v;
+                } else {
+                    runs.lengths[runs.runCount - 1]++;
+                }
+                previous[0] = v;
+            });
+            runs.cardinality = source.cardinality();
+            return runs;
+        }
+
+        static RunContainer read(DataInput in) throws IOException {
+            RunContainer runs = new RunContainer();
+            runs.runCount = in.readUnsignedShort() + 1;
+            runs.starts = new char[runs.runCount];
+            runs.lengths = new char[runs.runCount];
+            for (int i = 0; i < runs.runCount; i++) {
+                runs.starts[i] = in.readChar();
+                runs.lengths[i] = in.readChar();
+                runs.cardinality += runs.lengths[i] + 1;
+            }
+            return runs;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            int i = Arrays.binarySearch(starts, 0, runCount, value);
+            if (i >= 0) {
+                return true;
+            }
+            i = -i - 2;
+            return i >= 0 && value <= starts[i] + lengths[i];
+        }
+
+        @Override
+        Container add(char value) {
+            if (contains(value)) {
+                return this;
+            }
+            Container mutable = cardinality < ARRAY_MAX ? ArrayContainer.from(this) : BitmapContainer.from(this);
+            return mutable.add(value);
+        }
+
+        @Override
+        int rank(char value) {
+            int total = 0;
+            for (int i = 0; i < runCount && starts[i] <= value; i++) {
+                total += Math.min(value, starts[i] + lengths[i]) - starts[i] + 1;
+            }
+            return total;
+        }
+
+        @Override
+        int selectZero(int p) {
+            int x = p;
+            for (int i = 0; i < runCount && starts[i] <= x; i++) {
+                x += lengths[i] + 1;
+            }
+            return x;
+        }
+
+        @Override
+        int select(int p) {
+            for (int i = 0; i < runCount; i++) {
+                if (p <= lengths[i]) {
+                    return starts[i] + p;
+                }
+                p -= lengths[i] + 1;
+            }
+            throw new IndexOutOfBoundsException("Chunk has " + cardinality + " values");
+        }
+
+        @Override
+        Container optimize() {
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            // Runs are never mutated in place, so they can be shared.
+            return this;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(RUN);
+            out.writeShort(runCount - 1);
+            for (int i = 0; i < runCount; i++) {
+                out.writeChar(starts[i]);
+                out.writeChar(lengths[i]);
+            }
+        }
+
+        @Override
+        void forEach(IntConsumer action) {
+            for (int i = 0; i < runCount; i++) {
+                for (int v = starts[i]; v <= starts[i] + lengths[i]; v++) {
+                    action.accept(v);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package src;
+
+import java.util.*;
+
+// Groups of near-identical questions, as found by NearDuplicateDetector or read
+// back from "dup:<id>" tags in a bank. The sampler uses it to keep at most one
+// member of each group in a quiz.
+public class DuplicateClusters {
+
+    public static final String TAG_PREFIX = "dup:";
+
+    private final int[] clusterOf;
+    private final List<Cluster> clusters;
+
+    public DuplicateClusters(int bankSize, List<Cluster> clusters) {
+        this.clusterOf = new int[bankSize];
+        Arrays.fill(clusterOf, -1);
+        this.clusters = Collections.unmodifiableList(clusters);
+        for (Cluster cluster : clusters) {
+            for (int member : cluster.members) {
+                clusterOf[member] = cluster.id;
+            }
+        }
+    }
+
+    // Reads clusters from dup: tags via the tag postings, without walking the bank.
+    public static DuplicateClusters fromTags(QuestionIndex index) {
+        List<Cluster> clusters = new ArrayList<>();
+        for (String tag : index.values(QuestionIndex.TAG)) {
+            if (tag.startsWith(TAG_PREFIX)) {
+                CompressedBitmap posting = index.posting(QuestionIndex.TAG, tag);
+                int[] members = new int[posting.cardinality()];
+                int[] n = {0};
+                posting.forEach(member -> members[n[0]++] = member);
+                clusters.add(new Cluster(clusters.size(), members, Double.NaN));
+            }
+        }
+        return new DuplicateClusters(index.size(), clusters);
+    }
+
+    public List<Cluster> getClusters() {
+        return clusters;
+    }
+
+    // Cluster id of a bank index, or -1 when the question has no near duplicates.
+    public int clusterOf(int questionIndex) {
+        return questionIndex < clusterOf.length ? clusterOf[questionIndex] : -1;
+    }
+
+    public Guard newGuard() {
+        return new Guard();
+    }
+
+    // Adds a dup:<id> tag to every clustered question.
+    public void tag(List<Question> questions) {
+        for (Cluster cluster : clusters) {
+            for (int member : cluster.members) {
+                Question q = questions.get(member);
+                String tag = TAG_PREFIX + cluster.id;
+                String[] tags = q.tags == null ? new String[0] : q.tags;
+                if (!Arrays.asList(tags).contains(tag)) {
+                    q.tags = Arrays.copyOf(tags, tags.length + 1);
+                    q.tags[tags.length] = tag;
+                }
+            }
+        }
+    }
+
+    public static class Cluster {
+        public final int id;
+        public final int[] members;
+        // Lowest estimated Jaccard similarity among the pairs that joined the cluster
+        public final double similarity;
+
+        public Cluster(int id, int[] members, double similarity) {
+            this.id = id;
+            this.members = members;
+            this.similarity = similarity;
+        }
+    }
+
+    // Tracks the clusters already used by one quiz being drawn.
+    public class Guard {
+        private int[] used = new int[16];
+        private int count = 0;
+
+        public boolean accept(int questionIndex) {
+            int cluster = clusterOf(questionIndex);
+            if (cluster < 0) {
+                return true;
+            }
+            for (int i = 0; i < count; i++) {
+                if (used[i] == cluster) {
+                    return false;
+                }
+            }
+            if (count == used.length) {
+                used = Arrays.copyOf(used, count * 2);
+            }
+            used[count++] = cluster;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package src;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free log-linear histogram of nanosecond latencies. Each power of two is
+// split into 16 linear sub-buckets, so reported percentiles are within ~6%.
+// Recording never allocates. With more than one stripe, threads record into
+// separate copies of the buckets and readers sum them, so many writers hitting
+// the same bucket do not fight over one cache line.
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        this(1);
+    }
+
+    // stripes is rounded up to a power of two.
+    public LatencyHistogram(int stripes) {
+        int n = Integer.highestOneBit(Math.max(1, stripes - 1) << 1);
+        this.stripeMask = stripes <= 1 ? 0 : n - 1;
+        this.counts = new AtomicLongArray((stripeMask + 1) * BUCKET_COUNT);
+    }
+
+    public void record(long nanos) {
+        int stripe = (int) mix(Thread.currentThread().threadId()) & stripeMask;
+        counts.incrementAndGet(stripe * BUCKET_COUNT + bucketIndex(Math.max(0, nanos)));
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    // Bucket counts summed over all stripes; index with bucketUpperBound().
+    public long[] snapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < counts.length(); i++) {
+            snapshot[i % BUCKET_COUNT] += counts.get(i);
+        }
+        return snapshot;
+    }
+
+    // Returns the upper bound of the bucket holding the given percentile (0-100).
+    public long percentile(double percentile) {
+        long[] snapshot = snapshot();
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(BUCKET_COUNT - 1);
+    }
+
+    public double percentileMillis(double percentile) {
+        return percentile(percentile) / 1_000_000.0;
+    }
+
+    // Upper bound of the highest non-empty bucket, or 0 when nothing was recorded.
+    public long max() {
+        long[] snapshot = snapshot();
+        for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+            if (snapshot[i] > 0) {
+                return bucketUpperBound(i);
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    // Spreads sequential thread ids over the stripes.
+    private static long mix(long x) {
+        x = (x ^ (x >>> 33)) * 0xff51afd7ed558ccdL;
+        return x ^ (x >>> 33);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS;
+        long low = (SUB_BUCKETS + sub) << shift;
+        return low + (1L << shift) - 1;
+    }
+}
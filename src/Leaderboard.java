@@ -0,0 +1,269 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One ranking of players by their best result. Entries are kept in a size
+// balanced tree, an order-statistic tree where every node knows the size of its
+// subtree, so submitting, "what is my rank" and the first step of a top-K query
+// are all O(log n). Ties on points go to whoever finished first.
+//
+// Not thread-safe; LeaderboardStore guards every board with its lock.
+public class Leaderboard {
+
+    // Higher points first, then earlier completion, then submission order
+    static final Comparator<Entry> RANK_ORDER = Leaderboard::compare;
+
+    // Spelled out rather than chained comparators; it runs on every step of every descent
+    private static int compare(Entry a, Entry b) {
+        if (a.points != b.points) {
+            return a.points > b.points ? -1 : 1;
+        }
+        if (a.completedMillis != b.completedMillis) {
+            return a.completedMillis < b.completedMillis ? -1 : 1;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    public static class Entry {
+        public final String player;
+        public final int points;
+        public final int correct;
+        public final long completedMillis;
+        public final String sessionId;
+        public final long sequence;
+
+        public Entry(String player, int points, int correct, long completedMillis, String sessionId, long sequence) {
+            this.player = player;
+            this.points = points;
+            this.correct = correct;
+            this.completedMillis = completedMillis;
+            this.sessionId = sessionId;
+            this.sequence = sequence;
+        }
+    }
+
+    private static class Node {
+        final Entry entry;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    private final Map<String, Entry> byPlayer = new HashMap<>();
+    private Node root;
+
+    // Builds a perfectly balanced tree in O(n) from entries already in rank order,
+    // one per player, as written by entries().
+    static Leaderboard fromSorted(List<Entry> sorted) {
+        Leaderboard board = new Leaderboard();
+        board.root = build(sorted, 0, sorted.size());
+        for (Entry entry : sorted) {
+            board.byPlayer.put(entry.player, entry);
+        }
+        return board;
+    }
+
+    private static Node build(List<Entry> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = new Node(sorted.get(mid));
+        node.left = build(sorted, from, mid);
+        node.right = build(sorted, mid + 1, to);
+        node.size = to - from;
+        return node;
+    }
+
+    public int size() {
+        return byPlayer.size();
+    }
+
+    public Entry get(String player) {
+        return byPlayer.get(player);
+    }
+
+    // Keeps the entry if it beats the player's current best; returns whether it did.
+    public boolean submit(Entry entry) {
+        Entry current = byPlayer.get(entry.player);
+        if (current != null) {
+            if (compare(entry, current) >= 0) {
+                return false;
+            }
+            root = delete(root, current);
+        }
+        byPlayer.put(entry.player, entry);
+        root = insert(root, new Node(entry));
+        return true;
+    }
+
+    // 1-based position of the player, or -1 if they have no entry.
+    public int rankOf(String player) {
+        Entry entry = byPlayer.get(player);
+        if (entry == null) {
+            return -1;
+        }
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            int c = compare(entry, node.entry);
+            if (c < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                if (c == 0) {
+                    return rank;
+                }
+                node = node.right;
+            }
+        }
+        throw new IllegalStateException("Leaderboard index out of sync for " + player);
+    }
+
+    // Entries at ranks from+1 .. from+count, in rank order.
+    public List<Entry> range(int from, int count) {
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(count, size() - from)));
+        if (from < 0 || count <= 0 || from >= size()) {
+            return result;
+        }
+        // Walk down to the first requested entry, keeping the path for an in-order walk
+        List<Node> stack = new ArrayList<>();
+        Node node = root;
+        int skip = from;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (skip < leftSize) {
+                stack.add(node);
+                node = node.left;
+            } else if (skip == leftSize) {
+                stack.add(node);
+                break;
+            } else {
+                skip -= leftSize + 1;
+                node = node.right;
+            }
+        }
+        while (!stack.isEmpty() && result.size() < count) {
+            Node next = stack.remove(stack.size() - 1);
+            result.add(next.entry);
+            for (Node n = next.right; n != null; n = n.left) {
+                stack.add(n);
+            }
+        }
+        return result;
+    }
+
+    public List<Entry> top(int count) {
+        return range(0, count);
+    }
+
+    public List<Entry> entries() {
+        return range(0, size());
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        node.size++;
+        boolean right = compare(added.entry, node.entry) > 0;
+        if (right) {
+            node.right = insert(node.right, added);
+        } else {
+            node.left = insert(node.left, added);
+        }
+        return maintain(node, right);
+    }
+
+    // Plain BST removal; a size balanced tree stays O(log n) deep without
+    // rebalancing on delete, since its height is bounded by the largest size reached.
+    private static Node delete(Node node, Entry entry) {
+        int c = compare(entry, node.entry);
+        if (c == 0) {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.entry);
+            replacement.right = delete(node.right, successor.entry);
+            replacement.left = node.left;
+            replacement.size = node.size - 1;
+            return replacement;
+        }
+        node.size--;
+        if (c < 0) {
+            node.left = delete(node.left, entry);
+        } else {
+            node.right = delete(node.right, entry);
+        }
+        return node;
+    }
+
+    private static Node maintain(Node node, boolean rightHeavy) {
+        if (!rightHeavy) {
+            if (node.left == null) {
+                return node;
+            }
+            if (size(node.left.left) > size(node.right)) {
+                node = rotateRight(node);
+            } else if (size(node.left.right) > size(node.right)) {
+                node.left = rotateLeft(node.left);
+                node = rotateRight(node);
+            } else {
+                return node;
+            }
+        } else {
+            if (node.right == null) {
+                return node;
+            }
+            if (size(node.right.right) > size(node.left)) {
+                node = rotateLeft(node);
+            } else if (size(node.right.left) > size(node.left)) {
+                node.right = rotateRight(node.right);
+                node = rotateLeft(node);
+            } else {
+                return node;
+            }
+        }
+        node.left = node.left == null ? null : maintain(node.left, false);
+        node.right = node.right == null ? null : maintain(node.right, true);
+        node = maintain(node, false);
+        return maintain(node, true);
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        pivot.size = node.size;
+        node.size = size(node.left) + size(node.right) + 1;
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        pivot.size = node.size;
+        node.size = size(node.left) + size(node.right) + 1;
+        return pivot;
+    }
+}
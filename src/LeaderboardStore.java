@@ -0,0 +1,383 @@
+package src;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// The global leaderboard plus one per event, kept durable as a snapshot and a
+// journal of submissions since it. Startup reads the newest snapshot, which is
+// stored in rank order so each board is rebuilt in O(n), then replays the journal.
+//
+//   <dir>/leaderboard-<generation>.snap   boards as of the start of the generation
+//   <dir>/journal-<generation>.log        submissions made during the generation
+//
+// Each journal record is length + CRC32C + payload, so a torn tail left by a
+// crash is detected and cut off. Submissions are buffered and reach the disk on
+// sync(), so a crash loses at most the results since the last sync; callers run it
+// periodically. A snapshot is taken once the journal has grown past a threshold,
+// records replayed at startup included, or on close; the boards are copied under
+// the lock, and the slow write happens outside it.
+public class LeaderboardStore implements Closeable {
+
+    public static final String GLOBAL = "global";
+    private static final int SNAPSHOT_MAGIC = 0x42514C42; // "BQLB"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_AFTER_RECORDS = 100_000;
+
+    private final Path dir;
+    private final Map<String, Leaderboard> boards = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+    private long generation;
+    private long sequence;
+    private FileChannel journal;
+    private DataOutputStream journalOut;
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(128);
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+    private final CRC32C crc = new CRC32C();
+    private int journalRecords;
+
+    public LeaderboardStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        load();
+    }
+
+    // Records a finished quiz on the global board and, if event is set, on that
+    // event's board. Only a player's best result counts.
+    public void submit(String event, String player, int points, int correct, String sessionId) {
+        lock.writeLock().lock();
+        try {
+            Leaderboard.Entry entry = new Leaderboard.Entry(player, points, correct,
+                    System.currentTimeMillis(), sessionId, ++sequence);
+            apply(GLOBAL, entry);
+            if (event != null && !event.isEmpty() && !GLOBAL.equals(event)) {
+                apply(event, entry);
+            }
+            journal(event, entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int rankOf(String board, String player) {
+        lock.readLock().lock();
+        try {
+            Leaderboard leaderboard = boards.get(board);
+            return leaderboard == null ? -1 : leaderboard.rankOf(player);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Leaderboard.Entry get(String board, String player) {
+        lock.readLock().lock();
+        try {
+            Leaderboard leaderboard = boards.get(board);
+            return leaderboard == null ? null : leaderboard.get(player);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Leaderboard.Entry> top(String board, int count) {
+        return range(board, 0, count);
+    }
+
+    public List<Leaderboard.Entry> range(String board, int from, int count) {
+        lock.readLock().lock();
+        try {
+            Leaderboard leaderboard = boards.get(board);
+            return leaderboard == null ? List.of() : leaderboard.range(from, count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size(String board) {
+        lock.readLock().lock();
+        try {
+            Leaderboard leaderboard = boards.get(board);
+            return leaderboard == null ? 0 : leaderboard.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<String> boardNames() {
+        lock.readLock().lock();
+        try {
+            return new TreeSet<>(boards.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Flushes the journal to disk and snapshots if it has grown large; meant to be
+    // called periodically from a background thread.
+    public void sync() throws IOException {
+        boolean snapshot;
+        lock.writeLock().lock();
+        try {
+            journalOut.flush();
+            journal.force(false);
+            snapshot = journalRecords >= SNAPSHOT_AFTER_RECORDS;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (snapshot) {
+            snapshot();
+        }
+    }
+
+    // Starts a new generation and writes the boards as they were at its start.
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            Map<String, List<Leaderboard.Entry>> copy = new TreeMap<>();
+            long snapshotGeneration;
+            long snapshotSequence;
+            lock.writeLock().lock();
+            try {
+                for (Map.Entry<String, Leaderboard> board : boards.entrySet()) {
+                    copy.put(board.getKey(), board.getValue().entries());
+                }
+                snapshotGeneration = generation + 1;
+                snapshotSequence = sequence;
+                closeJournal();
+                openJournal(snapshotGeneration);
+                // Counts records replayed at startup too, so a long journal is snapshotted on the next sync
+                journalRecords = 0;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            writeSnapshot(snapshotGeneration, snapshotSequence, copy);
+            // Only now is everything before this generation covered by a snapshot
+            for (Path old : files("leaderboard-", ".snap")) {
+                if (generationOf(old) < snapshotGeneration) {
+                    Files.deleteIfExists(old);
+                }
+            }
+            for (Path old : files("journal-", ".log")) {
+                if (generationOf(old) < snapshotGeneration) {
+                    Files.deleteIfExists(old);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshot();
+        lock.writeLock().lock();
+        try {
+            closeJournal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(String board, Leaderboard.Entry entry) {
+        boards.computeIfAbsent(board, name -> new Leaderboard()).submit(entry);
+    }
+
+    private void journal(String event, Leaderboard.Entry entry) {
+        try {
+            recordBytes.reset();
+            record.writeUTF(event == null ? "" : event);
+            record.writeUTF(entry.player);
+            record.writeInt(entry.points);
+            record.writeInt(entry.correct);
+            record.writeLong(entry.completedMillis);
+            record.writeUTF(entry.sessionId == null ? "" : entry.sessionId);
+            record.writeLong(entry.sequence);
+            crc.reset();
+            crc.update(recordBytes.toByteArray());
+            journalOut.writeInt(recordBytes.size());
+            journalOut.writeInt((int) crc.getValue());
+            recordBytes.writeTo(journalOut);
+            journalRecords++;
+        } catch (IOException e) {
+            System.err.println("Error writing leaderboard journal: " + e.getMessage());
+        }
+    }
+
+    private void load() throws IOException {
+        List<Path> snapshots = files("leaderboard-", ".snap");
+        long loadedGeneration = 0;
+        if (!snapshots.isEmpty()) {
+            Path newest = snapshots.get(snapshots.size() - 1);
+            readSnapshot(newest);
+            loadedGeneration = generationOf(newest);
+        }
+        generation = loadedGeneration;
+
+        // A crash between rotating the journal and finishing the snapshot leaves more
+        // than one journal to replay
+        long lastJournal = loadedGeneration;
+        for (Path path : files("journal-", ".log")) {
+            long journalGeneration = generationOf(path);
+            if (journalGeneration >= loadedGeneration) {
+                replay(path);
+                lastJournal = Math.max(lastJournal, journalGeneration);
+            }
+        }
+        generation = Math.max(generation, lastJournal);
+        openJournal(generation);
+    }
+
+    private void readSnapshot(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a leaderboard snapshot: " + path);
+            }
+            in.readLong(); // generation, also in the file name
+            sequence = in.readLong();
+            int boardCount = in.readInt();
+            for (int b = 0; b < boardCount; b++) {
+                String name = in.readUTF();
+                int count = in.readInt();
+                List<Leaderboard.Entry> entries = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    String player = in.readUTF();
+                    int points = in.readInt();
+                    int correct = in.readInt();
+                    long completed = in.readLong();
+                    String session = in.readUTF();
+                    long entrySequence = in.readLong();
+                    entries.add(new Leaderboard.Entry(player, points, correct, completed, session, entrySequence));
+                }
+                boards.put(name, Leaderboard.fromSorted(entries));
+            }
+        }
+    }
+
+    private void writeSnapshot(long snapshotGeneration, long snapshotSequence,
+                               Map<String, List<Leaderboard.Entry>> copy) throws IOException {
+        Path target = dir.resolve(String.format("leaderboard-%012d.snap", snapshotGeneration));
+        Path temp = Files.createTempFile(dir, "leaderboard", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(snapshotGeneration);
+                out.writeLong(snapshotSequence);
+                out.writeInt(copy.size());
+                for (Map.Entry<String, List<Leaderboard.Entry>> board : copy.entrySet()) {
+                    out.writeUTF(board.getKey());
+                    out.writeInt(board.getValue().size());
+                    for (Leaderboard.Entry entry : board.getValue()) {
+                        out.writeUTF(entry.player);
+                        out.writeInt(entry.points);
+                        out.writeInt(entry.correct);
+                        out.writeLong(entry.completedMillis);
+                        out.writeUTF(entry.sessionId == null ? "" : entry.sessionId);
+                        out.writeLong(entry.sequence);
+                    }
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Applies every intact record and cuts the file after the last one.
+    private void replay(Path path) throws IOException {
+        long valid = 0;
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            CRC32C check = new CRC32C();
+            while (true) {
+                int length;
+                int expected;
+                byte[] payload;
+                try {
+                    length = in.readInt();
+                    expected = in.readInt();
+                    if (length <= 0 || length > 1 << 20) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                } catch (EOFException e) {
+                    break;
+                }
+                if (payload.length < length) {
+                    break;
+                }
+                check.reset();
+                check.update(payload);
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                DataInputStream fields = new DataInputStream(new ByteArrayInputStream(payload));
+                String event = fields.readUTF();
+                Leaderboard.Entry entry = new Leaderboard.Entry(fields.readUTF(), fields.readInt(), fields.readInt(),
+                        fields.readLong(), fields.readUTF(), fields.readLong());
+                // Records already in the snapshot are skipped by sequence
+                if (entry.sequence > sequence) {
+                    sequence = entry.sequence;
+                    apply(GLOBAL, entry);
+                    if (!event.isEmpty() && !GLOBAL.equals(event)) {
+                        apply(event, entry);
+                    }
+                    replayed++;
+                }
+                valid += 8 + length;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (channel.size() > valid) {
+                System.err.printf("Leaderboard journal: truncating torn tail of %s at byte %d of %d%n",
+                        path.getFileName(), valid, channel.size());
+                channel.truncate(valid);
+            }
+        }
+        journalRecords += replayed;
+    }
+
+    private void openJournal(long journalGeneration) throws IOException {
+        generation = journalGeneration;
+        journal = FileChannel.open(dir.resolve(String.format("journal-%012d.log", journalGeneration)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journalOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(journal), 1 << 12));
+    }
+
+    private void closeJournal() throws IOException {
+        if (journal != null) {
+            journalOut.flush();
+            journal.force(false);
+            journal.close();
+            journal = null;
+        }
+    }
+
+    private List<Path> files(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(prefix) && name.endsWith(suffix)
+                        && name.substring(prefix.length(), name.length() - suffix.length()).matches("\\d{12}");
+            }).sorted().toList();
+        }
+    }
+
+    private static long generationOf(Path path) {
+        String name = path.getFileName().toString();
+        int dash = name.indexOf('-');
+        return Long.parseLong(name.substring(dash + 1, name.indexOf('.', dash)));
+    }
+}
@@ -0,0 +1,202 @@
+package src;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Finds near-duplicate questions ("Where was Jesus born?" / "In what town was Jesus
+// born?") without comparing all pairs. Each question becomes a set of shingles
+// (content words plus its correct answer), summarised by a 128-value MinHash
+// signature. Locality-sensitive hashing over 32 bands of 4 rows then only pairs
+// questions that agree on a whole band, which is likely once their Jaccard
+// similarity passes ~0.4. Candidates must have the same correct answer and are
+// confirmed against the threshold using the signatures, then joined into clusters
+// with union-find. Requiring the same answer keeps templated questions ("Who was the
+// first person to be called a ...?") apart.
+public class NearDuplicateDetector {
+
+    private static final int HASHES = 128;
+    private static final int ROWS = 4;
+    private static final int BANDS = HASHES / ROWS;
+    // Buckets this large are common phrasing, not duplicates; skipping them keeps the
+    // pass sub-quadratic.
+    private static final int MAX_BUCKET = 200;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "did", "do", "does", "for", "from",
+            "how", "in", "is", "it", "of", "on", "or", "the", "to", "was", "were", "what",
+            "when", "where", "which", "who", "whom", "whose", "why", "with");
+
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        QuizSampler seeds = new QuizSampler(0x5EED_D0D0L);
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = seeds.nextLong();
+        }
+    }
+
+    private final double threshold;
+    private final ForkJoinPool pool;
+
+    public NearDuplicateDetector(double threshold, ForkJoinPool pool) {
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    public DuplicateClusters detect(List<Question> questions) {
+        int n = questions.size();
+        try {
+            int[] signatures = new int[n * HASHES];
+            int[] answers = new int[n];
+            pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+                Question q = questions.get(i);
+                sign(q, signatures, i * HASHES);
+                answers[i] = answerKey(q).hashCode();
+            })).get();
+
+            Map<Long, Float> pairs = new ConcurrentHashMap<>();
+            pool.submit(() -> IntStream.range(0, BANDS).parallel()
+                    .forEach(band -> collectCandidates(signatures, answers, n, band, pairs))).get();
+
+            return cluster(n, pairs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Duplicate detection interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Duplicate detection failed", e.getCause());
+        }
+    }
+
+    static List<String> shingles(Question q) {
+        List<String> shingles = new ArrayList<>();
+        for (String token : QuestionSearchIndex.tokenize(q.question)) {
+            if (!STOPWORDS.contains(token)) {
+                shingles.add(token);
+            }
+        }
+        shingles.add("=" + answerKey(q));
+        return shingles;
+    }
+
+    private static String answerKey(Question q) {
+        int answer = q.answerIndex();
+        return answer < 0 ? "" : String.join(" ", QuestionSearchIndex.tokenize(q.option(answer)));
+    }
+
+    private static void sign(Question q, int[] signatures, int offset) {
+        Arrays.fill(signatures, offset, offset + HASHES, Integer.MAX_VALUE);
+        for (String shingle : shingles(q)) {
+            long h = shingle.hashCode() * 0x9E3779B97F4A7C15L;
+            for (int i = 0; i < HASHES; i++) {
+                int value = (int) (mix(h ^ SEEDS[i]) >>> 33);
+                if (value < signatures[offset + i]) {
+                    signatures[offset + i] = value;
+                }
+            }
+        }
+    }
+
+    // Sorts (band hash, question) pairs so equal bands sit next to each other, then
+    // verifies the pairs inside each small run.
+    private void collectCandidates(int[] signatures, int[] answers, int n, int band, Map<Long, Float> pairs) {
+        long[] keyed = new long[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (signatures[i * HASHES] == Integer.MAX_VALUE) {
+                continue; // no shingles, nothing to compare
+            }
+            long h = band;
+            for (int r = 0; r < ROWS; r++) {
+                h = mix(h * 31 + signatures[i * HASHES + band * ROWS + r]);
+            }
+            keyed[count++] = (h & 0xFFFFFFFF00000000L) | i;
+        }
+        Arrays.sort(keyed, 0, count);
+
+        int runStart = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i < count && (keyed[i] >>> 32) == (keyed[runStart] >>> 32)) {
+                continue;
+            }
+            int runLength = i - runStart;
+            if (runLength > 1 && runLength <= MAX_BUCKET) {
+                for (int a = runStart; a < i; a++) {
+                    for (int b = a + 1; b < i; b++) {
+                        int x = (int) keyed[a];
+                        int y = (int) keyed[b];
+                        long pair = ((long) Math.min(x, y) << 32) | Math.max(x, y);
+                        if (answers[x] == answers[y] && !pairs.containsKey(pair)) {
+                            float similarity = similarity(signatures, x, y);
+                            if (similarity >= threshold) {
+                                pairs.put(pair, similarity);
+                            }
+                        }
+                    }
+                }
+            }
+            runStart = i;
+        }
+    }
+
+    private static float similarity(int[] signatures, int x, int y) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (signatures[x * HASHES + i] == signatures[y * HASHES + i]) {
+                equal++;
+            }
+        }
+        return (float) equal / HASHES;
+    }
+
+    private static DuplicateClusters cluster(int n, Map<Long, Float> pairs) {
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (long pair : pairs.keySet()) {
+            int a = find(parent, (int) (pair >>> 32));
+            int b = find(parent, (int) pair);
+            if (a != b) {
+                parent[Math.max(a, b)] = Math.min(a, b);
+            }
+        }
+
+        Map<Integer, List<Integer>> members = new TreeMap<>();
+        Map<Integer, Float> minSimilarity = new HashMap<>();
+        pairs.forEach((pair, similarity) -> {
+            int root = find(parent, (int) (pair >>> 32));
+            minSimilarity.merge(root, similarity, Math::min);
+        });
+        for (int root : minSimilarity.keySet()) {
+            members.put(root, new ArrayList<>());
+        }
+        for (int i = 0; i < n; i++) {
+            List<Integer> group = members.get(find(parent, i));
+            if (group != null) {
+                group.add(i);
+            }
+        }
+
+        List<DuplicateClusters.Cluster> clusters = new ArrayList<>();
+        members.forEach((root, group) -> clusters.add(new DuplicateClusters.Cluster(clusters.size(),
+                group.stream().mapToInt(Integer::intValue).toArray(), minSimilarity.get(root))));
+        return new DuplicateClusters(n, clusters);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
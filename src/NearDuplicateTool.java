@@ -0,0 +1,61 @@
+package src;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Reports clusters of near-duplicate questions in a bank.
+//
+//   java src.NearDuplicateTool <questions.json|questions.bqb> [--threshold 0.6] [--tag tagged.json]
+//
+// With --tag, a copy of the bank is written where every clustered question carries
+// a dup:<id> tag, which QuizServer picks up to keep duplicates out of one quiz.
+public class NearDuplicateTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: NearDuplicateTool <bank> [--threshold 0.6] [--tag out.json]");
+            System.exit(2);
+        }
+        double threshold = 0.6;
+        String tagOutput = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            if ("--threshold".equals(args[i])) {
+                threshold = Double.parseDouble(args[i + 1]);
+            } else if ("--tag".equals(args[i])) {
+                tagOutput = args[i + 1];
+            }
+        }
+
+        List<Question> questions = QuestionLoader.loadBank(args[0]);
+        if (questions == null) {
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        DuplicateClusters duplicates = new NearDuplicateDetector(threshold, ForkJoinPool.commonPool()).detect(questions);
+        System.out.printf("Found %d clusters in %d questions in %d ms%n", duplicates.getClusters().size(),
+                questions.size(), (System.nanoTime() - start) / 1_000_000);
+
+        for (DuplicateClusters.Cluster cluster : duplicates.getClusters()) {
+            System.out.printf("cluster %d (similarity %.2f)%n", cluster.id, cluster.similarity);
+            for (int member : cluster.members) {
+                System.out.printf("  #%d %s%n", member, questions.get(member).question);
+            }
+        }
+
+        if (tagOutput != null) {
+            List<Question> tagged = new ArrayList<>(questions);
+            duplicates.tag(tagged);
+            try (Writer out = Files.newBufferedWriter(Paths.get(tagOutput), StandardCharsets.UTF_8)) {
+                QuestionBankWriter.write(tagged, out);
+            }
+            System.out.println("Wrote tagged bank to " + tagOutput);
+        }
+    }
+}
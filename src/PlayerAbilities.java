@@ -0,0 +1,94 @@
+package src;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Elo ability of every player, in the same units as QuestionDifficulty ratings.
+// Players get a slot on first sight and their rating and answer count live in
+// primitive arrays, so an update after each answer allocates nothing.
+//
+// Every answer on the server updates one player, so as in QuestionDifficulty a
+// slot is guarded by one of STRIPES locks chosen by slot, and only handing out a
+// new slot locks the map of players. The arrays are fixed-size chunks that never
+// move once handed out, so adding players never races an update.
+//
+// Abilities do not depend on the question bank and survive reloads; they are kept
+// in memory only and start again from INITIAL_RATING after a restart.
+public class PlayerAbilities {
+
+    private static final int STRIPES = 64;
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    // Replaced by a longer copy when full; the chunks themselves are shared
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    private static class Chunk {
+        final double[] ability = new double[CHUNK_SIZE];
+        final int[] answers = new int[CHUNK_SIZE];
+
+        Chunk() {
+            Arrays.fill(ability, QuestionDifficulty.INITIAL_RATING);
+        }
+    }
+
+    public PlayerAbilities() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    public int slot(String playerId) {
+        synchronized (slots) {
+            Integer slot = slots.get(playerId);
+            if (slot != null) {
+                return slot;
+            }
+            int next = slots.size();
+            if (next >>> CHUNK_BITS == chunks.length) {
+                Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+                grown[chunks.length] = new Chunk();
+                chunks = grown;
+            }
+            slots.put(playerId, next);
+            return next;
+        }
+    }
+
+    public double get(int slot) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        synchronized (stripe(slot)) {
+            return chunk.ability[slot & (CHUNK_SIZE - 1)];
+        }
+    }
+
+    public int getAnswers(int slot) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        synchronized (stripe(slot)) {
+            return chunk.answers[slot & (CHUNK_SIZE - 1)];
+        }
+    }
+
+    // Moves the player's rating by k * (actual - expected) and counts the answer.
+    void adjust(int slot, double surprise) {
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int i = slot & (CHUNK_SIZE - 1);
+        synchronized (stripe(slot)) {
+            chunk.ability[i] += QuestionDifficulty.kFactor(chunk.answers[i]) * surprise;
+            chunk.answers[i]++;
+        }
+    }
+
+    public int size() {
+        synchronized (slots) {
+            return slots.size();
+        }
+    }
+
+    private Object stripe(int slot) {
+        return stripes[slot & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,44 @@
+package src;
+
+// One multiple-choice question as stored in questions.json; the answer is the key
+// of the right option, "option_a" to "option_d".
+class Question {
+    static final String[] ANSWER_KEYS = {"option_a", "option_b", "option_c", "option_d"};
+
+    public String question;
+    public String option_a;
+    public String option_b;
+    public String option_c;
+    public String option_d;
+    public String answer;
+
+    // Optional metadata, used for filtered quizzes
+    public String testament;
+    public String book;
+    public int chapter;
+    public String difficulty;
+    public String[] tags;
+
+    String option(int index) {
+        switch (index) {
+            case 0: return option_a;
+            case 1: return option_b;
+            case 2: return option_c;
+            case 3: return option_d;
+            default: throw new IndexOutOfBoundsException("Option " + index);
+        }
+    }
+
+    int answerIndex() {
+        return answerIndex(answer);
+    }
+
+    // Maps "option_a".."option_d" to 0..3, or -1 for anything else.
+    static int answerIndex(String answerKey) {
+        if (answerKey == null || answerKey.length() != 8 || !answerKey.startsWith("option_")) {
+            return -1;
+        }
+        int index = answerKey.charAt(7) - 'a';
+        return index >= 0 && index < 4 ? index : -1;
+    }
+}
@@ -0,0 +1,309 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+
+// Question banks by language. A bank is loaded the first time a language asks for
+// it and kept in a least-recently-used cache bounded by an estimate of the memory the
+// banks take; when a load pushes the total over the budget, the banks used longest
+// ago are closed and dropped until it fits again. The bank just loaded always stays,
+// even if it alone is over budget.
+//
+// Languages resolve to bank names the way resource bundles do: pt-BR is served by
+// questions_pt_BR if there is one, else questions_pt, else the default questions.
+// For each name the cache looks in the bank directory for a .bqb then a .json file,
+// then for /resources/data/<name>.json on the classpath. JSON banks skip invalid
+// records with a warning, as the bundled bank always has; a binary bank is watched
+// and reloaded when its file is replaced.
+//
+// Loads run on background daemon threads. Requests for a bank that is already
+// loading share the one load instead of parsing the file again.
+public class QuestionBankCache implements Closeable {
+
+    public static final String DEFAULT_BANK = "questions";
+    // The language of the default bank
+    public static final String DEFAULT_LANGUAGE = "en";
+    private static final String RESOURCE_DIR = "/resources/data/";
+    // Index, difficulty ratings and duplicate bitmaps per question, on top of the bank itself
+    private static final long BYTES_PER_QUESTION = 96;
+
+    private static final ExecutorService LOADER = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "question-bank-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path directory;
+    private final long budgetBytes;
+    private final BiConsumer<String, QuestionBankSnapshot> reloadListener;
+    private final Map<String, CompletableFuture<QuestionBankSnapshot>> loading = new ConcurrentHashMap<>();
+    // Guarded by this; iterates from least to most recently used
+    private final LinkedHashMap<String, Entry> cached = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private volatile boolean closed;
+
+    private static class Entry {
+        QuestionBankSnapshot snapshot;
+        long sourceBytes;
+        long bytes;
+        final int skipped;
+        final QuestionBankWatcher watcher;
+
+        Entry(QuestionBankSnapshot snapshot, long sourceBytes, int skipped, QuestionBankWatcher watcher) {
+            this.snapshot = snapshot;
+            this.sourceBytes = sourceBytes;
+            this.bytes = sourceBytes + snapshot.size() * BYTES_PER_QUESTION;
+            this.skipped = skipped;
+            this.watcher = watcher;
+        }
+    }
+
+    // reloadListener, which may be null, hears about every bank replaced by its
+    // watcher, on the watcher's thread.
+    public QuestionBankCache(Path directory, long budgetBytes, BiConsumer<String, QuestionBankSnapshot> reloadListener) {
+        this.directory = directory;
+        this.budgetBytes = budgetBytes;
+        this.reloadListener = reloadListener;
+    }
+
+    // The budget from -Dbiblequiz.bankCacheMb, 256 MB by default.
+    public static long budgetFromSystemProperty() {
+        return Long.getLong("biblequiz.bankCacheMb", 256) * 1024 * 1024;
+    }
+
+    // The most specific bank that exists for a language tag such as pt-BR.
+    public String resolve(String languageTag) {
+        Locale locale = Locale.forLanguageTag(languageTag == null ? "" : languageTag);
+        List<String> candidates = new ArrayList<>();
+        if (!locale.getLanguage().isEmpty()) {
+            if (!locale.getCountry().isEmpty()) {
+                candidates.add(DEFAULT_BANK + "_" + locale.getLanguage() + "_" + locale.getCountry());
+            }
+            candidates.add(DEFAULT_BANK + "_" + locale.getLanguage());
+        }
+        for (String name : candidates) {
+            if (exists(name)) {
+                return name;
+            }
+        }
+        return DEFAULT_BANK;
+    }
+
+    // Language tags with a bank in the bank directory, those named by
+    // -Dbiblequiz.languages (for banks bundled on the classpath) and the default one.
+    public List<String> availableLanguages() {
+        Set<String> languages = new TreeSet<>();
+        languages.add(DEFAULT_LANGUAGE);
+        for (String tag : System.getProperty("biblequiz.languages", "").split(",")) {
+            if (!tag.isBlank()) {
+                languages.add(Locale.forLanguageTag(tag.trim()).toLanguageTag());
+            }
+        }
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, DEFAULT_BANK + "_*.{bqb,json}")) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    String suffix = name.substring(DEFAULT_BANK.length() + 1, name.lastIndexOf('.'));
+                    languages.add(Locale.forLanguageTag(suffix.replace('_', '-')).toLanguageTag());
+                }
+            } catch (IOException e) {
+                System.err.println("Error listing question banks in " + directory + ": " + e.getMessage());
+            }
+        }
+        languages.remove("und");
+        return new ArrayList<>(languages);
+    }
+
+    // The bank with a name from resolve(), loading it unless it is cached or
+    // already on its way.
+    public CompletableFuture<QuestionBankSnapshot> get(String name) {
+        QuestionBankSnapshot snapshot = getIfCached(name);
+        if (snapshot != null) {
+            return CompletableFuture.completedFuture(snapshot);
+        }
+        CompletableFuture<QuestionBankSnapshot> created = new CompletableFuture<>();
+        CompletableFuture<QuestionBankSnapshot> existing = loading.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+        // A load that finished between the lookup and putIfAbsent is cached by now
+        snapshot = getIfCached(name);
+        if (snapshot != null) {
+            loading.remove(name, created);
+            created.complete(snapshot);
+            return created;
+        }
+        LOADER.execute(() -> {
+            try {
+                created.complete(load(name));
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                // Cached before this, so no caller finds neither
+                loading.remove(name, created);
+            }
+        });
+        return created;
+    }
+
+    public synchronized QuestionBankSnapshot getIfCached(String name) {
+        Entry entry = cached.get(name);
+        return entry == null ? null : entry.snapshot;
+    }
+
+    // Invalid records the JSON bank had to skip, or 0 when it is not cached.
+    public synchronized int skippedRecords(String name) {
+        Entry entry = cached.get(name);
+        return entry == null ? 0 : entry.skipped;
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    @Override
+    public void close() {
+        List<Entry> entries;
+        synchronized (this) {
+            closed = true;
+            entries = new ArrayList<>(cached.values());
+            cached.clear();
+            cachedBytes = 0;
+        }
+        entries.forEach(QuestionBankCache::release);
+    }
+
+    private boolean exists(String name) {
+        return Files.isRegularFile(directory.resolve(name + ".bqb"))
+                || Files.isRegularFile(directory.resolve(name + ".json"))
+                || QuestionBankCache.class.getResource(RESOURCE_DIR + name + ".json") != null;
+    }
+
+    private QuestionBankSnapshot load(String name) throws IOException {
+        long start = System.nanoTime();
+        Entry entry = null;
+        Path binary = directory.resolve(name + ".bqb");
+        if (Files.isRegularFile(binary)) {
+            try {
+                QuestionBankSnapshot snapshot = QuestionBankSnapshot.load(binary);
+                QuestionBankWatcher watcher = null;
+                try {
+                    watcher = new QuestionBankWatcher(binary, next -> reloaded(name, next));
+                } catch (IOException e) {
+                    System.err.println("Not watching " + binary + ": " + e.getMessage());
+                }
+                entry = new Entry(snapshot, Files.size(binary), 0, watcher);
+            } catch (IOException e) {
+                System.err.println("Could not open binary bank, falling back to JSON: " + e.getMessage());
+            }
+        }
+        if (entry == null) {
+            entry = loadJson(name);
+        }
+        if (!add(name, entry)) {
+            release(entry);
+            throw new IOException("Question banks are closed");
+        }
+        System.out.printf("Loaded question bank %s, %d questions (~%d KB) in %d ms%n", name,
+                entry.snapshot.size(), entry.bytes / 1024, (System.nanoTime() - start) / 1_000_000);
+        return entry.snapshot;
+    }
+
+    private Entry loadJson(String name) throws IOException {
+        Path file = directory.resolve(name + ".json");
+        URL url = Files.isRegularFile(file) ? file.toUri().toURL() : getClass().getResource(RESOURCE_DIR + name + ".json");
+        if (url == null) {
+            throw new IOException("Questions file " + name + ".json not found.");
+        }
+        List<QuestionRecordError> errors = new ArrayList<>();
+        ColumnarQuestionStore store;
+        long sourceBytes;
+        try (InputStream is = url.openStream()) {
+            sourceBytes = Files.isRegularFile(file) ? Files.size(file) : url.openConnection().getContentLengthLong();
+            store = QuestionLoader.loadColumnar(new InputStreamReader(is, StandardCharsets.UTF_8), errors::add);
+        }
+        errors.forEach(error -> System.err.println("Skipping invalid question in " + name + ": " + error));
+        if (store.size() == 0) {
+            throw new IOException(name + ".json contains no questions");
+        }
+        String source = Files.isRegularFile(file) ? file.toString() : RESOURCE_DIR + name + ".json";
+        return new Entry(QuestionBankSnapshot.of(source, store.asList()), Math.max(sourceBytes, 0), errors.size(), null);
+    }
+
+    // Caches a freshly loaded bank and evicts the least recently used others until
+    // the total is back under budget.
+    private boolean add(String name, Entry entry) {
+        List<Entry> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            Entry previous = cached.put(name, entry);
+            if (previous != null) {
+                cachedBytes -= previous.bytes;
+                evicted.add(previous);
+            }
+            cachedBytes += entry.bytes;
+            Iterator<Map.Entry<String, Entry>> eldest = cached.entrySet().iterator();
+            while (cachedBytes > budgetBytes && cached.size() > 1) {
+                Map.Entry<String, Entry> victim = eldest.next();
+                cachedBytes -= victim.getValue().bytes;
+                evicted.add(victim.getValue());
+                eldest.remove();
+                System.out.printf("Evicted question bank %s to stay under %.1f MB%n", victim.getKey(),
+                        budgetBytes / (1024.0 * 1024));
+            }
+        }
+        evicted.forEach(QuestionBankCache::release);
+        return true;
+    }
+
+    // Called on a watcher thread. A bank evicted in the meantime is not brought back.
+    private void reloaded(String name, QuestionBankSnapshot next) {
+        QuestionBankSnapshot previous;
+        synchronized (this) {
+            Entry entry = cached.get(name);
+            if (entry == null) {
+                previous = next;
+            } else {
+                previous = entry.snapshot;
+                next.inheritRatings(previous);
+                entry.snapshot = next;
+                cachedBytes -= entry.bytes;
+                entry.bytes = entry.sourceBytes + next.size() * BYTES_PER_QUESTION;
+                cachedBytes += entry.bytes;
+            }
+        }
+        if (previous != next && reloadListener != null) {
+            reloadListener.accept(name, next);
+        }
+        try {
+            previous.close();
+        } catch (IOException e) {
+            System.err.println("Error closing previous question bank: " + e.getMessage());
+        }
+    }
+
+    // Sessions already running on an evicted bank keep working: closing only
+    // releases the file handle, not the questions.
+    private static void release(Entry entry) {
+        try {
+            if (entry.watcher != null) {
+                entry.watcher.close();
+            }
+            entry.snapshot.close();
+        } catch (IOException e) {
+            System.err.println("Error closing question bank: " + e.getMessage());
+        }
+    }
+}
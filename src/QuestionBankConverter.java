@@ -0,0 +1,58 @@
+package src;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Converts questions.json into the memory-mapped binary bank format. The bank is
+// validated and indexed here, once, and the index saved beside it as
+// questions.bqb.idx, so opening the bank never has to decode every question.
+//
+//   java src.QuestionBankConverter resources/data/questions.json resources/data/questions.bqb
+public class QuestionBankConverter {
+
+    // Writes to a temporary file and moves it into place, so a running app or server
+    // that has the old bank mapped keeps reading the old file and its watcher only
+    // ever sees a complete bank. The index goes in first, so when the watcher sees
+    // the new bank its index is already there. A bank with errors is not installed.
+    public static int convert(String jsonPath, Path bankPath) throws IOException {
+        Path target = bankPath.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            int count;
+            try (BinaryQuestionBank.Writer writer = new BinaryQuestionBank.Writer(temp)) {
+                QuestionLoader.forEachQuestion(jsonPath, writer,
+                        error -> System.err.println("Skipping invalid question " + error));
+                count = writer.getCount();
+            }
+            QuestionIndex index;
+            try (BinaryQuestionBank bank = BinaryQuestionBank.open(temp)) {
+                List<Question> questions = bank.asList();
+                List<String> errors = QuestionBankSnapshot.errors(questions);
+                if (!errors.isEmpty()) {
+                    throw new IOException(jsonPath + " has " + errors.size() + " invalid records, first " + errors.get(0));
+                }
+                index = QuestionIndex.build(questions);
+            }
+            QuestionBankSnapshot.writeIndex(temp, QuestionBankSnapshot.indexFile(target), index);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return count;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: QuestionBankConverter <questions.json> <questions.bqb>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        int count = convert(args[0], Paths.get(args[1]));
+        System.out.printf("Wrote %d questions to %s in %d ms%n",
+                count, args[1], (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,209 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// An immutable question bank together with everything derived from it. Readers take
+// one reference and use it for the whole request, so a reload swapping in a new
+// snapshot never mixes the questions of one bank with the index of another.
+//
+// Fixed quizzes copy the questions they serve, but adaptive and study sessions pick
+// as they go and keep the questions and difficulty ratings of the snapshot they
+// started on, so a replaced snapshot stays reachable until those sessions finish or
+// expire, and their answers still rate the old questions. Closing only releases the
+// file handle of a memory-mapped bank; the mapping itself stays readable until the
+// buffer is collected.
+//
+// Opening a binary bank stays O(1) in the number of questions: the bank was
+// validated and indexed when QuestionBankConverter wrote it, the index is read from
+// the .idx file beside it, and the difficulty ratings are only built, from the
+// index, when the first adaptive quiz asks for them.
+//
+// The one mutable part is the live difficulty rating of each question, which is
+// learned from answers and carried over by question text when a bank is replaced.
+public class QuestionBankSnapshot implements Closeable {
+
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final int INDEX_MAGIC = 0x42514946; // "BQIF"
+
+    private final long version;
+    private final String source;
+    private final List<Question> questions;
+    private final QuestionIndex index;
+    private final DuplicateClusters duplicates;
+    private volatile QuestionDifficulty difficulty;
+    private final Closeable resource;
+
+    private QuestionBankSnapshot(String source, List<Question> questions, QuestionIndex index, Closeable resource) {
+        this.version = VERSIONS.incrementAndGet();
+        this.source = source;
+        this.questions = Collections.unmodifiableList(questions);
+        this.index = index;
+        this.duplicates = DuplicateClusters.fromTags(index);
+        this.resource = resource;
+    }
+
+    public static QuestionBankSnapshot of(String source, List<Question> questions) {
+        return new QuestionBankSnapshot(source, questions, QuestionIndex.build(Collections.unmodifiableList(questions)), null);
+    }
+
+    // Loads and validates a bank file. Any invalid record rejects the whole file, so
+    // a half-written or broken upload never replaces a working bank.
+    public static QuestionBankSnapshot load(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        if (name.endsWith(".bqb")) {
+            BinaryQuestionBank bank = BinaryQuestionBank.open(path);
+            try {
+                List<Question> questions = bank.asList();
+                QuestionIndex index = readIndex(path, questions.size());
+                if (index == null) {
+                    // Written by an older converter or copied without its index: check and
+                    // index it the slow way once, and save the index for the next start
+                    System.err.println("No up-to-date index for " + path + ", validating and indexing every question");
+                    checkValid(path, questions.size(), errors(questions));
+                    index = QuestionIndex.build(questions);
+                    try {
+                        writeIndex(path, indexFile(path), index);
+                    } catch (IOException e) {
+                        System.err.println("Could not save the index of " + path + ": " + e.getMessage());
+                    }
+                }
+                checkValid(path, questions.size(), List.of());
+                return new QuestionBankSnapshot(path.toString(), questions, index, bank);
+            } catch (IOException | RuntimeException e) {
+                bank.close();
+                throw e;
+            }
+        }
+
+        List<String> errors = new ArrayList<>();
+        ColumnarQuestionStore store;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            store = QuestionLoader.loadColumnar(reader, error -> errors.add(error.toString()));
+        }
+        checkValid(path, store.size(), errors);
+        return of(path.toString(), store.asList());
+    }
+
+    // The index saved beside a binary bank.
+    public static Path indexFile(Path bank) {
+        return bank.resolveSibling(bank.getFileName() + ".idx");
+    }
+
+    // Every error BankValidator finds in the bank, as messages.
+    static List<String> errors(List<Question> questions) {
+        return BankValidator.validate(questions).stream()
+                .filter(v -> v.severity == BankViolation.Severity.ERROR)
+                .map(BankViolation::toString)
+                .toList();
+    }
+
+    // Saves the index of a binary bank, stamped with the bank file's size and
+    // modification time so a replaced bank is never served with a stale index.
+    // Written to a temporary file and moved into place.
+    static void writeIndex(Path bank, Path indexFile, QuestionIndex index) throws IOException {
+        Path target = indexFile.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeLong(Files.size(bank));
+                out.writeLong(Files.getLastModifiedTime(bank).toMillis());
+                index.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // The saved index when it belongs to this exact bank file, else null.
+    private static QuestionIndex readIndex(Path bank, int count) {
+        Path file = indexFile(bank);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != INDEX_MAGIC || in.readLong() != Files.size(bank)
+                    || in.readLong() != Files.getLastModifiedTime(bank).toMillis()) {
+                return null;
+            }
+            QuestionIndex index = QuestionIndex.read(in);
+            return index.size() == count ? index : null;
+        } catch (IOException e) {
+            System.err.println("Ignoring unreadable index " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void checkValid(Path path, int size, List<String> errors) throws IOException {
+        if (!errors.isEmpty()) {
+            throw new IOException(path + " has " + errors.size() + " invalid records, first " + errors.get(0));
+        }
+        if (size == 0) {
+            throw new IOException(path + " contains no questions");
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<Question> getQuestions() {
+        return questions;
+    }
+
+    public QuestionIndex getIndex() {
+        return index;
+    }
+
+    public DuplicateClusters getDuplicates() {
+        return duplicates;
+    }
+
+    // Built on first use, so a bank that only serves fixed quizzes never pays for it.
+    public QuestionDifficulty getDifficulty() {
+        QuestionDifficulty built = difficulty;
+        if (built == null) {
+            synchronized (this) {
+                built = difficulty;
+                if (built == null) {
+                    difficulty = built = new QuestionDifficulty(index);
+                }
+            }
+        }
+        return built;
+    }
+
+    // Starts from the ratings learned on the bank this one replaces. Matching by text
+    // decodes both banks, which the watcher does on its own thread; when the old bank
+    // never rated anything there is nothing to carry over.
+    public void inheritRatings(QuestionBankSnapshot previous) {
+        QuestionDifficulty learned = previous.difficulty;
+        if (learned != null) {
+            getDifficulty().carryOver(learned, previous.questions, questions);
+        }
+    }
+
+    public int size() {
+        return questions.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (resource != null) {
+            resource.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Watches a bank file and hands a freshly loaded, validated snapshot to the listener
+// whenever it changes. Parsing, validation and indexing all happen on the watcher's
+// own daemon thread; a file that fails to load is logged and the current bank stays.
+public class QuestionBankWatcher implements Closeable {
+
+    // Editors and copy tools touch a file several times per save, so a reload waits
+    // until the file has been quiet this long.
+    private static final long SETTLE_MILLIS = 500;
+
+    private final Path file;
+    private final Consumer<QuestionBankSnapshot> listener;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    public QuestionBankWatcher(Path file, Consumer<QuestionBankSnapshot> listener) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.listener = listener;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        // Watch the directory: replacing the file by an atomic move creates a new entry
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "question-bank-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!touchesBank(watchService.take())) {
+                    continue;
+                }
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    touchesBank(more);
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    private boolean touchesBank(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    private void reload() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            QuestionBankSnapshot snapshot = QuestionBankSnapshot.load(file);
+            listener.accept(snapshot);
+            System.out.printf("Reloaded %d questions from %s in %d ms%n",
+                    snapshot.size(), file, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Keeping current question bank, reload failed: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,41 @@
+package src;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+// Writes questions back out in the questions.json layout, one record at a time.
+// Metadata fields are only written when set, so plain banks round-trip unchanged.
+public class QuestionBankWriter {
+
+    public static void write(List<Question> questions, Writer out) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+        writer.setIndent("  ");
+        writer.beginArray();
+        for (Question q : questions) {
+            writer.beginObject();
+            writer.name("question").value(q.question);
+            writer.name("option_a").value(q.option_a);
+            writer.name("option_b").value(q.option_b);
+            writer.name("option_c").value(q.option_c);
+            writer.name("option_d").value(q.option_d);
+            writer.name("answer").value(q.answer);
+            if (q.testament != null) writer.name("testament").value(q.testament);
+            if (q.book != null) writer.name("book").value(q.book);
+            if (q.chapter > 0) writer.name("chapter").value(q.chapter);
+            if (q.difficulty != null) writer.name("difficulty").value(q.difficulty);
+            if (q.tags != null && q.tags.length > 0) {
+                writer.name("tags").beginArray();
+                for (String tag : q.tags) {
+                    writer.value(tag);
+                }
+                writer.endArray();
+            }
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
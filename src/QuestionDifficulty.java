@@ -0,0 +1,257 @@
+package src;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+// Live Elo difficulty of every question in one bank. Each answer is a match between
+// player and question: a correct answer moves the player up and the question down by
+// k * (1 - expected), a wrong one the other way, where expected is the chance the
+// player had of getting it right. K starts high and shrinks as a question (or
+// player) collects answers, so early estimates move quickly and settle later.
+//
+// Questions are kept in rating buckets BUCKET_WIDTH points wide, an index sorted by
+// difficulty at bucket granularity. Finding the question closest to a player's
+// ability looks at the player's bucket and walks outward, and a rating change
+// moves the question between two buckets in O(1), so neither depends on the size
+// of the bank. Ratings start from the difficulty metadata when a question has it.
+//
+// Every session on the server picks from and rates the same bank, so there is no
+// lock over all of it. A question's rating and answer count are guarded by one of
+// STRIPES locks chosen by question, and each bucket's members by the bucket's own
+// lock. A pick copies a few members of one bucket out under its lock and tests them
+// after letting go, and a rating change holds its question's stripe and then the
+// two buckets it moves between, lower bucket first.
+public class QuestionDifficulty {
+
+    static final double INITIAL_RATING = 1500;
+    private static final double MIN_RATING = 500;
+    private static final double MAX_RATING = 2500;
+    private static final int BUCKET_WIDTH = 25;
+    private static final int BUCKETS = (int) ((MAX_RATING - MIN_RATING) / BUCKET_WIDTH) + 1;
+    // Preferred questions (e.g. unseen) are only looked for this close to the target
+    // before falling back to any allowed question
+    private static final int PREFERRED_BUCKET_RANGE = 8;
+    // Members tried per bucket, from a random start so equal players get different
+    // quizzes. The fallback pass looks further but is still capped, so a player who
+    // has seen most of the bank costs the same per pick whatever its size.
+    private static final int PROBES_PER_BUCKET = 32;
+    private static final int FALLBACK_PROBES_PER_BUCKET = 256;
+    private static final int STRIPES = 64;
+    private static final double K_MAX = 64;
+    private static final double K_MIN = 12;
+
+    private final double[] rating;
+    private final int[] answers;
+    private final int[] bucketOf;
+    private final int[] positionInBucket;
+    private final int[][] members = new int[BUCKETS][];
+    private final int[] memberCount = new int[BUCKETS];
+    private final Object[] bucketLocks = new Object[BUCKETS];
+    private final Object[] stripes = new Object[STRIPES];
+
+    // Starting ratings come from the difficulty postings, so no question is decoded.
+    public QuestionDifficulty(QuestionIndex index) {
+        int n = index.size();
+        rating = new double[n];
+        answers = new int[n];
+        bucketOf = new int[n];
+        positionInBucket = new int[n];
+        Arrays.fill(rating, INITIAL_RATING);
+        for (String difficulty : index.values(QuestionIndex.DIFFICULTY)) {
+            double initial = initialRating(difficulty);
+            index.posting(QuestionIndex.DIFFICULTY, difficulty).forEach(i -> rating[i] = initial);
+        }
+        for (int b = 0; b < BUCKETS; b++) {
+            members[b] = new int[8];
+            bucketLocks[b] = new Object();
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        for (int i = 0; i < n; i++) {
+            addToBucket(i, bucket(rating[i]));
+        }
+    }
+
+    static double kFactor(int answerCount) {
+        return K_MIN + (K_MAX - K_MIN) / (1 + answerCount / 20.0);
+    }
+
+    // Chance that a player of the given ability answers a question of the given rating.
+    public static double expected(double ability, double questionRating) {
+        return 1 / (1 + Math.pow(10, (questionRating - ability) / 400));
+    }
+
+    public double getRating(int question) {
+        synchronized (stripe(question)) {
+            return rating[question];
+        }
+    }
+
+    public int getAnswers(int question) {
+        synchronized (stripe(question)) {
+            return answers[question];
+        }
+    }
+
+    public int size() {
+        return rating.length;
+    }
+
+    // Updates the question's and the player's rating for one answer.
+    public void record(PlayerAbilities players, int player, int question, boolean correct) {
+        double ability = players.get(player);
+        double surprise;
+        synchronized (stripe(question)) {
+            surprise = (correct ? 1 : 0) - expected(ability, rating[question]);
+            double updated = rating[question] - kFactor(answers[question]) * surprise;
+            rating[question] = Math.max(MIN_RATING, Math.min(MAX_RATING, updated));
+            answers[question]++;
+            moveToBucket(question, bucket(rating[question]));
+        }
+        players.adjust(player, surprise);
+    }
+
+    // The question rated closest to the ability that passes preferred, looking only a
+    // few buckets either side; failing that the closest that passes allowed, in any
+    // bucket. Both passes sample a bounded number of members per bucket, so -1 means
+    // none of those was allowed; with only the quiz's own questions and duplicate
+    // clusters excluded, that takes a bank that is nearly all one cluster.
+    public int closest(double ability, IntPredicate preferred, IntPredicate allowed, QuizSampler random) {
+        int target = bucket(ability);
+        int[] candidates = new int[FALLBACK_PROBES_PER_BUCKET];
+        int found = search(target, ability, PREFERRED_BUCKET_RANGE, PROBES_PER_BUCKET, preferred, random, candidates);
+        return found >= 0 ? found
+                : search(target, ability, BUCKETS, FALLBACK_PROBES_PER_BUCKET, allowed, random, candidates);
+    }
+
+    // Carries learned ratings over to a reloaded bank for questions whose text did not change.
+    public void carryOver(QuestionDifficulty previous, List<Question> previousQuestions, List<Question> questions) {
+        Map<String, Integer> byText = new HashMap<>(previousQuestions.size() * 2);
+        for (int i = 0; i < previousQuestions.size(); i++) {
+            byText.put(previousQuestions.get(i).question, i);
+        }
+        for (int i = 0; i < questions.size(); i++) {
+            Integer old = byText.get(questions.get(i).question);
+            if (old == null) {
+                continue;
+            }
+            double learned;
+            int answerCount;
+            synchronized (previous.stripe(old)) {
+                learned = previous.rating[old];
+                answerCount = previous.answers[old];
+            }
+            if (answerCount > 0) {
+                synchronized (stripe(i)) {
+                    rating[i] = learned;
+                    answers[i] = answerCount;
+                    moveToBucket(i, bucket(learned));
+                }
+            }
+        }
+    }
+
+    private Object stripe(int question) {
+        return stripes[question & (STRIPES - 1)];
+    }
+
+    private int search(int target, double ability, int range, int probes, IntPredicate accept, QuizSampler random,
+                       int[] candidates) {
+        // Of the two buckets at each distance, try the one on the ability's side first
+        boolean upFirst = ability >= MIN_RATING + (target + 0.5) * BUCKET_WIDTH;
+        for (int d = 0; d <= range; d++) {
+            int first = upFirst ? target + d : target - d;
+            int found = probe(first, probes, accept, random, candidates);
+            if (found >= 0) {
+                return found;
+            }
+            if (d > 0) {
+                found = probe(upFirst ? target - d : target + d, probes, accept, random, candidates);
+                if (found >= 0) {
+                    return found;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Predicates run on a copy, so a slow one never holds up rating changes; a
+    // candidate that moved bucket meanwhile is still a fair pick.
+    private int probe(int bucket, int probes, IntPredicate accept, QuizSampler random, int[] candidates) {
+        if (bucket < 0 || bucket >= BUCKETS) {
+            return -1;
+        }
+        int tries;
+        synchronized (bucketLocks[bucket]) {
+            int count = memberCount[bucket];
+            if (count == 0) {
+                return -1;
+            }
+            int start = random.nextInt(count);
+            tries = Math.min(count, probes);
+            int head = Math.min(tries, count - start);
+            System.arraycopy(members[bucket], start, candidates, 0, head);
+            System.arraycopy(members[bucket], 0, candidates, head, tries - head);
+        }
+        for (int i = 0; i < tries; i++) {
+            if (accept.test(candidates[i])) {
+                return candidates[i];
+            }
+        }
+        return -1;
+    }
+
+    // Called holding the question's stripe, which is the only way a question moves,
+    // so its bucket cannot change underneath.
+    private void moveToBucket(int question, int bucket) {
+        int from = bucketOf[question];
+        if (from == bucket) {
+            return;
+        }
+        synchronized (bucketLocks[Math.min(from, bucket)]) {
+            synchronized (bucketLocks[Math.max(from, bucket)]) {
+                removeFromBucket(question);
+                addToBucket(question, bucket);
+            }
+        }
+    }
+
+    private void addToBucket(int question, int bucket) {
+        if (memberCount[bucket] == members[bucket].length) {
+            members[bucket] = Arrays.copyOf(members[bucket], memberCount[bucket] * 2);
+        }
+        bucketOf[question] = bucket;
+        positionInBucket[question] = memberCount[bucket];
+        members[bucket][memberCount[bucket]++] = question;
+    }
+
+    // Swap-remove: the bucket's last member takes the question's place.
+    private void removeFromBucket(int question) {
+        int bucket = bucketOf[question];
+        int position = positionInBucket[question];
+        int last = members[bucket][--memberCount[bucket]];
+        members[bucket][position] = last;
+        positionInBucket[last] = position;
+    }
+
+    private static int bucket(double value) {
+        int bucket = (int) ((value - MIN_RATING) / BUCKET_WIDTH);
+        return Math.max(0, Math.min(BUCKETS - 1, bucket));
+    }
+
+    private static double initialRating(String difficulty) {
+        if (difficulty == null) {
+            return INITIAL_RATING;
+        }
+        return switch (difficulty.trim().toLowerCase(Locale.ROOT)) {
+            case "easy" -> 1300;
+            case "hard" -> 1700;
+            default -> INITIAL_RATING;
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+// Inverted indexes over question metadata: one CompressedBitmap of bank indices
+// per facet value. A filtered quiz is answered by OR-ing the bitmaps within each
+// facet and AND-ing across facets, never by walking the bank.
+//
+// Building it decodes every question, so QuestionBankConverter saves it next to a
+// binary bank and QuestionBankSnapshot reads it back instead.
+public class QuestionIndex {
+
+    private static final int MAGIC = 0x42514958; // "BQIX"
+    private static final int VERSION = 1;
+
+    public static final String TESTAMENT = "testament";
+    public static final String BOOK = "book";
+    public static final String CHAPTER = "chapter";
+    public static final String DIFFICULTY = "difficulty";
+    public static final String TAG = "tag";
+
+    private final Map<String, Map<String, CompressedBitmap>> postings = new HashMap<>();
+    private final int size;
+
+    private QuestionIndex(int size) {
+        this.size = size;
+    }
+
+    public static QuestionIndex build(List<Question> questions) {
+        QuestionIndex index = new QuestionIndex(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            Question q = questions.get(i);
+            index.post(TESTAMENT, q.testament, i);
+            index.post(BOOK, q.book, i);
+            if (q.book != null && q.chapter > 0) {
+                index.post(CHAPTER, q.book + " " + q.chapter, i);
+            }
+            index.post(DIFFICULTY, q.difficulty, i);
+            if (q.tags != null) {
+                for (String tag : q.tags) {
+                    index.post(TAG, tag, i);
+                }
+            }
+        }
+        for (Map<String, CompressedBitmap> facet : index.postings.values()) {
+            facet.values().forEach(CompressedBitmap::runOptimize);
+        }
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(size);
+        out.writeInt(postings.size());
+        for (Map.Entry<String, Map<String, CompressedBitmap>> facet : postings.entrySet()) {
+            out.writeUTF(facet.getKey());
+            out.writeInt(facet.getValue().size());
+            for (Map.Entry<String, CompressedBitmap> value : facet.getValue().entrySet()) {
+                out.writeUTF(value.getKey());
+                value.getValue().write(out);
+            }
+        }
+    }
+
+    public static QuestionIndex read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a question index");
+        }
+        QuestionIndex index = new QuestionIndex(in.readInt());
+        int facets = in.readInt();
+        for (int f = 0; f < facets; f++) {
+            Map<String, CompressedBitmap> facet = index.postings.computeIfAbsent(in.readUTF(), name -> new HashMap<>());
+            int values = in.readInt();
+            for (int v = 0; v < values; v++) {
+                facet.put(in.readUTF(), CompressedBitmap.read(in));
+            }
+        }
+        return index;
+    }
+
+    // Bank indices matching the filter, or null when the filter does not restrict anything.
+    public CompressedBitmap matching(QuizFilter filter) {
+        List<CompressedBitmap> perFacet = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> entry : filter.facets().entrySet()) {
+            Map<String, CompressedBitmap> facet = postings.getOrDefault(entry.getKey(), Map.of());
+            CompressedBitmap union = new CompressedBitmap();
+            for (String value : entry.getValue()) {
+                CompressedBitmap posting = facet.get(value);
+                if (posting != null) {
+                    union = CompressedBitmap.or(union, posting);
+                }
+            }
+            perFacet.add(union);
+        }
+        if (perFacet.isEmpty()) {
+            return null;
+        }
+
+        // Intersect smallest first so intermediate results shrink quickly
+        perFacet.sort(Comparator.comparingInt(CompressedBitmap::cardinality));
+        CompressedBitmap result = perFacet.get(0);
+        for (int i = 1; i < perFacet.size() && !result.isEmpty(); i++) {
+            result = CompressedBitmap.and(result, perFacet.get(i));
+        }
+        return result;
+    }
+
+    public int count(QuizFilter filter) {
+        CompressedBitmap matches = matching(filter);
+        return matches == null ? size : matches.cardinality();
+    }
+
+    // Questions carrying one facet value; empty when the value is unknown.
+    public CompressedBitmap posting(String facet, String value) {
+        CompressedBitmap posting = postings.getOrDefault(facet, Map.of()).get(normalize(value));
+        return posting == null ? new CompressedBitmap() : posting.copy();
+    }
+
+    // Known values of a facet, e.g. every book that has questions.
+    public Set<String> values(String facet) {
+        return Collections.unmodifiableSet(postings.getOrDefault(facet, Map.of()).keySet());
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void post(String facet, String value, int questionIndex) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        postings.computeIfAbsent(facet, f -> new HashMap<>())
+                .computeIfAbsent(normalize(value), v -> new CompressedBitmap())
+                .add(questionIndex);
+    }
+}
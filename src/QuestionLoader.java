@@ -1,22 +1,98 @@
 package src;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class QuestionLoader {
+
+    private static final Consumer<QuestionRecordError> LOG_ERRORS =
+            error -> System.err.println("Skipping invalid question " + error);
+
     public static List<Question> loadQuestions(String filePath) {
-        try {
-            Gson gson = new Gson();
-            FileReader reader = new FileReader(filePath);
-            List<Question> questions = gson.fromJson(reader, new TypeToken<List<Question>>(){}.getType());
-            reader.close();
-            return questions;
-        } catch (Exception e) {
+        try (Reader reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            return loadQuestions(reader, LOG_ERRORS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static List<Question> loadQuestionsFromResource(String resourcePath) {
+        try (InputStream is = QuestionLoader.class.getResourceAsStream(resourcePath)) {
+            if (is == null) {
+                System.err.println("Questions resource not found: " + resourcePath);
+                return null;
+            }
+            return loadQuestions(new InputStreamReader(is, StandardCharsets.UTF_8), LOG_ERRORS);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public static List<Question> loadQuestions(Reader reader, Consumer<QuestionRecordError> errors) throws IOException {
+        List<Question> questions = new ArrayList<>();
+        QuestionStreamReader.forEach(reader, questions::add, errors);
+        return questions;
+    }
+
+    // Streams the bank straight into a dictionary-encoded store, so duplicate option
+    // text is kept once and the parsed Question objects never accumulate.
+    public static ColumnarQuestionStore loadColumnar(Reader reader, Consumer<QuestionRecordError> errors) throws IOException {
+        ColumnarQuestionStore.Builder builder = new ColumnarQuestionStore.Builder();
+        QuestionStreamReader.forEach(reader, builder, errors);
+        return builder.build();
+    }
+
+    public static ColumnarQuestionStore loadColumnar(String filePath) {
+        try (Reader reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            return loadColumnar(reader, LOG_ERRORS);
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
     }
+
+    // Opens a bank for read-only use by tools and the server: a .bqb file is memory
+    // mapped for the life of the process, anything else is parsed as JSON.
+    public static List<Question> loadBank(String path) {
+        if (path.endsWith(".bqb")) {
+            try {
+                return BinaryQuestionBank.open(Paths.get(path)).asList();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        ColumnarQuestionStore store = loadColumnar(path);
+        return store == null ? null : store.asList();
+    }
+
+    // Streams the bank without holding it in memory; returns the number of valid questions.
+    public static int forEachQuestion(String filePath, Consumer<Question> consumer,
+                                      Consumer<QuestionRecordError> errors) throws IOException {
+        try (Reader reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            return QuestionStreamReader.forEach(reader, consumer, errors);
+        }
+    }
+
+    // Opens the bank as an iterator; the caller must close it.
+    public static QuestionStreamReader openQuestions(String filePath,
+                                                     Consumer<QuestionRecordError> errors) throws IOException {
+        Reader reader = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8);
+        try {
+            return new QuestionStreamReader(reader, errors);
+        } catch (IOException e) {
+            reader.close();
+            throw e;
+        }
+    }
 }
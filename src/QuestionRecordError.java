@@ -0,0 +1,19 @@
+package src;
+
+// A problem with one record of a question bank, reported instead of failing the whole load.
+public class QuestionRecordError {
+    public final int recordIndex;
+    public final String path;
+    public final String message;
+
+    public QuestionRecordError(int recordIndex, String path, String message) {
+        this.recordIndex = recordIndex;
+        this.path = path;
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "record " + recordIndex + " (" + path + "): " + message;
+    }
+}
@@ -0,0 +1,282 @@
+package src;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+// Full-text index over question text, options, book and tags for content editors.
+// Terms map to CompressedBitmaps of bank indices; a sorted term dictionary gives
+// prefix search and a trigram index over the terms gives substring search.
+//
+// Query syntax: words are ANDed together.
+//   goliath     exact word
+//   gol*        any word starting with "gol"
+//   *iat*       any word containing "iat" (3+ characters, shorter ones are rejected)
+//
+// A saved index records a checksum of the bank it was built from, so a caller can
+// tell an index that no longer matches the bank even when the count is unchanged.
+public class QuestionSearchIndex {
+
+    private static final int MAGIC = 0x42515349; // "BQSI"
+    private static final int VERSION = 2;
+    private static final int PARTITION_SIZE = 1 << 16;
+
+    private final int documentCount;
+    private final long sourceChecksum;
+    private final String[] terms;
+    private final CompressedBitmap[] postings;
+    private final Map<String, int[]> trigramToTerms;
+
+    private QuestionSearchIndex(int documentCount, long sourceChecksum, String[] terms, CompressedBitmap[] postings) {
+        this.documentCount = documentCount;
+        this.sourceChecksum = sourceChecksum;
+        this.terms = terms;
+        this.postings = postings;
+        this.trigramToTerms = buildTrigrams(terms);
+    }
+
+    // Builds partitions of 64K questions in parallel on the common fork-join pool.
+    // Partitions line up with bitmap chunks, so merging them is just concatenation.
+    public static QuestionSearchIndex build(List<Question> questions) {
+        return build(questions, 0);
+    }
+
+    // As build(questions), recording the checksum of the bank file they came from.
+    public static QuestionSearchIndex build(List<Question> questions, long sourceChecksum) {
+        int n = questions.size();
+        int partitions = (n + PARTITION_SIZE - 1) / PARTITION_SIZE;
+        Map<String, CompressedBitmap> merged = IntStream.range(0, partitions).parallel()
+                .mapToObj(p -> indexPartition(questions, p * PARTITION_SIZE, Math.min(n, (p + 1) * PARTITION_SIZE)))
+                .reduce(new HashMap<>(), QuestionSearchIndex::merge);
+
+        String[] terms = merged.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        CompressedBitmap[] postings = new CompressedBitmap[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            postings[i] = merged.get(terms[i]);
+            postings[i].runOptimize();
+        }
+        return new QuestionSearchIndex(n, sourceChecksum, terms, postings);
+    }
+
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    public long getSourceChecksum() {
+        return sourceChecksum;
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    // All bank indices matching the query. Throws IllegalArgumentException for a
+    // substring word shorter than 3 characters, which the trigrams cannot answer.
+    public CompressedBitmap search(String query) {
+        CompressedBitmap result = null;
+        for (String word : query.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            CompressedBitmap matches = matchWord(word);
+            result = result == null ? matches : CompressedBitmap.and(result, matches);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new CompressedBitmap() : result;
+    }
+
+    // The first limit matches in bank order.
+    public int[] search(String query, int limit) {
+        CompressedBitmap matches = search(query);
+        int[] result = new int[Math.min(limit, matches.cardinality())];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = matches.select(i);
+        }
+        return result;
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(documentCount);
+        out.writeLong(sourceChecksum);
+        out.writeInt(terms.length);
+        for (int i = 0; i < terms.length; i++) {
+            out.writeUTF(terms[i]);
+            postings[i].write(out);
+        }
+    }
+
+    public static QuestionSearchIndex read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a question search index");
+        }
+        int documentCount = in.readInt();
+        long sourceChecksum = in.readLong();
+        int termCount = in.readInt();
+        String[] terms = new String[termCount];
+        CompressedBitmap[] postings = new CompressedBitmap[termCount];
+        for (int i = 0; i < termCount; i++) {
+            terms[i] = in.readUTF();
+            postings[i] = CompressedBitmap.read(in);
+        }
+        return new QuestionSearchIndex(documentCount, sourceChecksum, terms, postings);
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            write(out);
+        }
+    }
+
+    public static QuestionSearchIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            return read(in);
+        }
+    }
+
+    private CompressedBitmap matchWord(String word) {
+        boolean leading = word.startsWith("*");
+        boolean trailing = word.endsWith("*") && word.length() > 1;
+        String core = word.substring(leading ? 1 : 0, word.length() - (trailing ? 1 : 0));
+        List<String> tokens = tokenize(core);
+        if (tokens.size() != 1) {
+            // Punctuation inside a word ("o'clock") splits it; require every part
+            CompressedBitmap all = null;
+            for (String token : tokens) {
+                CompressedBitmap matches = exact(token);
+                all = all == null ? matches : CompressedBitmap.and(all, matches);
+            }
+            return all == null ? new CompressedBitmap() : all;
+        }
+        String term = tokens.get(0);
+        if (leading) {
+            if (term.length() < 3) {
+                throw new IllegalArgumentException("Substring search needs at least 3 characters: " + word);
+            }
+            return substring(term);
+        }
+        return trailing ? prefix(term) : exact(term);
+    }
+
+    private CompressedBitmap exact(String term) {
+        int i = Arrays.binarySearch(terms, term);
+        return i >= 0 ? postings[i].copy() : new CompressedBitmap();
+    }
+
+    private CompressedBitmap prefix(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = from; i < terms.length && terms[i].startsWith(prefix); i++) {
+            result = CompressedBitmap.or(result, postings[i]);
+        }
+        return result;
+    }
+
+    private CompressedBitmap substring(String fragment) {
+        // Candidate terms contain every trigram of the fragment; confirm with contains()
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= fragment.length(); i++) {
+            int[] termIds = trigramToTerms.getOrDefault(fragment.substring(i, i + 3), new int[0]);
+            candidates = candidates == null ? termIds : intersect(candidates, termIds);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        CompressedBitmap result = new CompressedBitmap();
+        for (int termId : candidates) {
+            if (terms[termId].contains(fragment)) {
+                result = CompressedBitmap.or(result, postings[termId]);
+            }
+        }
+        return result;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Map<String, CompressedBitmap> indexPartition(List<Question> questions, int from, int to) {
+        Map<String, CompressedBitmap> partition = new HashMap<>();
+        for (int i = from; i < to; i++) {
+            Question q = questions.get(i);
+            int doc = i;
+            List<String> tokens = tokenize(q.question);
+            for (int option = 0; option < 4; option++) {
+                tokens.addAll(tokenize(q.option(option)));
+            }
+            tokens.addAll(tokenize(q.book));
+            if (q.tags != null) {
+                for (String tag : q.tags) {
+                    tokens.addAll(tokenize(tag));
+                }
+            }
+            for (String token : tokens) {
+                partition.computeIfAbsent(token, t -> new CompressedBitmap()).add(doc);
+            }
+        }
+        return partition;
+    }
+
+    private static Map<String, CompressedBitmap> merge(Map<String, CompressedBitmap> a, Map<String, CompressedBitmap> b) {
+        Map<String, CompressedBitmap> larger = a.size() >= b.size() ? a : b;
+        Map<String, CompressedBitmap> smaller = larger == a ? b : a;
+        Map<String, CompressedBitmap> merged = new HashMap<>(larger);
+        smaller.forEach((term, docs) -> merged.merge(term, docs, CompressedBitmap::or));
+        return merged;
+    }
+
+    private static Map<String, int[]> buildTrigrams(String[] terms) {
+        Map<String, List<Integer>> lists = new HashMap<>();
+        for (int t = 0; t < terms.length; t++) {
+            String term = terms[t];
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i + 3 <= term.length(); i++) {
+                String trigram = term.substring(i, i + 3);
+                if (seen.add(trigram)) {
+                    lists.computeIfAbsent(trigram, g -> new ArrayList<>()).add(t);
+                }
+            }
+        }
+        Map<String, int[]> trigrams = new HashMap<>(lists.size() * 2);
+        lists.forEach((trigram, ids) -> trigrams.put(trigram, ids.stream().mapToInt(Integer::intValue).toArray()));
+        return trigrams;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+}
@@ -0,0 +1,118 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+// Command line search for content editors.
+//
+//   java src.QuestionSearchTool <questions.json|questions.bqb> [--index file.idx] [query...]
+//
+// With --index the built index is saved and reused on the next run, as long as
+// the bank file's checksum still matches the one saved with it. Without a query,
+// queries are read from standard input one per line.
+public class QuestionSearchTool {
+
+    private static final int MAX_RESULTS = 50;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: QuestionSearchTool <bank> [--index file] [query...]");
+            System.exit(2);
+        }
+        String bankPath = args[0];
+        File indexFile = null;
+        StringBuilder query = new StringBuilder();
+        for (int i = 1; i < args.length; i++) {
+            if ("--index".equals(args[i]) && i + 1 < args.length) {
+                indexFile = new File(args[++i]);
+            } else {
+                query.append(args[i]).append(' ');
+            }
+        }
+
+        List<Question> questions = QuestionLoader.loadBank(bankPath);
+        if (questions == null) {
+            System.exit(1);
+        }
+        QuestionSearchIndex index = openIndex(questions, checksum(bankPath), indexFile);
+
+        if (query.length() > 0) {
+            printResults(index, questions, query.toString());
+            return;
+        }
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        System.out.print("search> ");
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            if (!line.isBlank()) {
+                printResults(index, questions, line);
+            }
+            System.out.print("search> ");
+        }
+    }
+
+    private static QuestionSearchIndex openIndex(List<Question> questions, long bankChecksum, File indexFile) throws IOException {
+        long start = System.nanoTime();
+        if (indexFile != null && indexFile.isFile()) {
+            try {
+                QuestionSearchIndex index = QuestionSearchIndex.load(indexFile);
+                // An edit can keep the question count, so compare the bank's contents
+                if (index.getSourceChecksum() == bankChecksum && index.getDocumentCount() == questions.size()) {
+                    System.out.printf("Loaded index (%d terms) in %d ms%n",
+                            index.getTermCount(), (System.nanoTime() - start) / 1_000_000);
+                    return index;
+                }
+                System.out.println("Index is stale for this bank, rebuilding");
+            } catch (IOException e) {
+                System.out.println("Could not read index, rebuilding: " + e.getMessage());
+            }
+        }
+        QuestionSearchIndex index = QuestionSearchIndex.build(questions, bankChecksum);
+        System.out.printf("Indexed %d questions (%d terms) in %d ms%n",
+                questions.size(), index.getTermCount(), (System.nanoTime() - start) / 1_000_000);
+        if (indexFile != null) {
+            index.save(indexFile);
+        }
+        return index;
+    }
+
+    // CRC32C of the bank file's bytes.
+    private static long checksum(String bankPath) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(Paths.get(bankPath))) {
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                crc.update(buffer, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void printResults(QuestionSearchIndex index, List<Question> questions, String query) {
+        long start = System.nanoTime();
+        CompressedBitmap matches;
+        try {
+            matches = index.search(query);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        System.out.printf("%d matches for \"%s\" in %.2f ms%n", matches.cardinality(), query.trim(), millis);
+        for (int i = 0; i < Math.min(MAX_RESULTS, matches.cardinality()); i++) {
+            int id = matches.select(i);
+            Question q = questions.get(id);
+            System.out.printf("  #%d %s [%s | %s | %s | %s]%n", id, q.question, q.option_a, q.option_b, q.option_c, q.option_d);
+        }
+        if (matches.cardinality() > MAX_RESULTS) {
+            System.out.println("  ...");
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package src;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Reads a questions.json array one record at a time, so only the current record
+// is ever materialised. Invalid records are reported to the error handler and
+// skipped; a syntax error ends the stream since nothing after it can be trusted.
+public class QuestionStreamReader implements Iterator<Question>, Closeable {
+
+    private final JsonReader reader;
+    private final Consumer<QuestionRecordError> errorHandler;
+    private final boolean validate;
+    private int recordIndex = -1;
+    private String recordPath = "$";
+    private int validCount = 0;
+    private int errorCount = 0;
+    private Question pending;
+    private String fieldProblem;
+    private boolean done;
+
+    public QuestionStreamReader(Reader in, Consumer<QuestionRecordError> errorHandler) throws IOException {
+        this(in, true, errorHandler);
+    }
+
+    // With validate off, records that parse are passed through even if they would fail
+    // BankValidator's fast rules; the validator itself uses this to see every record.
+    public QuestionStreamReader(Reader in, boolean validate, Consumer<QuestionRecordError> errorHandler) throws IOException {
+        this.validate = validate;
+        this.reader = new JsonReader(in);
+        this.reader.setLenient(true);
+        this.errorHandler = errorHandler;
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IOException("Question bank must be a JSON array, found " + reader.peek());
+        }
+        reader.beginArray();
+    }
+
+    // Streams every valid question to the consumer and returns how many were accepted.
+    public static int forEach(Reader in, Consumer<Question> consumer,
+                              Consumer<QuestionRecordError> errorHandler) throws IOException {
+        try (QuestionStreamReader questions = new QuestionStreamReader(in, errorHandler)) {
+            while (questions.hasNext()) {
+                consumer.accept(questions.next());
+            }
+            return questions.getValidCount();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (pending == null && !done) {
+            try {
+                if (!reader.hasNext()) {
+                    reader.endArray();
+                    done = true;
+                    break;
+                }
+                recordIndex++;
+                recordPath = "$[" + recordIndex + "]";
+                pending = readRecord();
+            } catch (IOException | IllegalStateException e) {
+                report("Malformed JSON, stopping: " + e.getMessage());
+                done = true;
+            }
+        }
+        return pending != null;
+    }
+
+    @Override
+    public Question next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Question q = pending;
+        pending = null;
+        validCount++;
+        return q;
+    }
+
+    // Position in the source array of the record last returned by next().
+    public int getRecordIndex() {
+        return recordIndex;
+    }
+
+    public int getValidCount() {
+        return validCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Question readRecord() throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            report("Expected a question object");
+            return null;
+        }
+
+        Question q = new Question();
+        fieldProblem = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "question": q.question = readString(name); break;
+                case "option_a": q.option_a = readString(name); break;
+                case "option_b": q.option_b = readString(name); break;
+                case "option_c": q.option_c = readString(name); break;
+                case "option_d": q.option_d = readString(name); break;
+                case "answer": q.answer = readString(name); break;
+                case "testament": q.testament = readString(name); break;
+                case "book": q.book = readString(name); break;
+                case "chapter": q.chapter = readInt(name); break;
+                case "difficulty": q.difficulty = readString(name); break;
+                case "tags": q.tags = readStringArray(name); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+
+        String problem = fieldProblem != null ? fieldProblem : validate ? BankValidator.firstError(q) : null;
+        if (problem != null) {
+            report(problem);
+            return null;
+        }
+        return q;
+    }
+
+    // Reads a string field; nulls stay null and non-string values are skipped and flagged.
+    private String readString(String name) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BEGIN_ARRAY || token == JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            fieldProblem = "Field '" + name + "' must be a string";
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private int readInt(String name) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return 0;
+        }
+        try {
+            return reader.nextInt();
+        } catch (NumberFormatException | IllegalStateException e) {
+            reader.skipValue();
+            fieldProblem = "Field '" + name + "' must be a whole number";
+            return 0;
+        }
+    }
+
+    private String[] readStringArray(String name) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            fieldProblem = "Field '" + name + "' must be an array of strings";
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String value = readString(name);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        reader.endArray();
+        return values.toArray(new String[0]);
+    }
+
+    private void report(String message) {
+        errorCount++;
+        if (errorHandler != null) {
+            errorHandler.accept(new QuestionRecordError(recordIndex, recordPath, message));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package src;
+
+import java.util.*;
+
+// Which questions a quiz may draw from. Values within one facet are alternatives
+// (book Matthew OR John); different facets must all match (New Testament AND hard).
+// An empty filter matches the whole bank.
+public class QuizFilter {
+
+    private final Map<String, Set<String>> facets = new LinkedHashMap<>();
+
+    public QuizFilter testament(String... values) {
+        return with(QuestionIndex.TESTAMENT, values);
+    }
+
+    public QuizFilter books(String... values) {
+        return with(QuestionIndex.BOOK, values);
+    }
+
+    // Chapters are given as "Book chapter", e.g. "John 3".
+    public QuizFilter chapters(String... values) {
+        return with(QuestionIndex.CHAPTER, values);
+    }
+
+    public QuizFilter difficulty(String... values) {
+        return with(QuestionIndex.DIFFICULTY, values);
+    }
+
+    public QuizFilter tags(String... values) {
+        return with(QuestionIndex.TAG, values);
+    }
+
+    public QuizFilter with(String facet, String... values) {
+        for (String value : values) {
+            if (value != null && !value.isBlank()) {
+                facets.computeIfAbsent(facet, f -> new LinkedHashSet<>()).add(QuestionIndex.normalize(value));
+            }
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return facets.isEmpty();
+    }
+
+    Map<String, Set<String>> facets() {
+        return facets;
+    }
+
+    @Override
+    public String toString() {
+        return facets.toString();
+    }
+}
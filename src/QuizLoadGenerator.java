@@ -0,0 +1,449 @@
+package src;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drives the quiz flow with simulated players to see how it scales. Every player is
+// a virtual thread that plays start -> answer -> next -> end over and over, pausing
+// to "think" before each answer and getting it right with its profile's accuracy.
+// Each step of the run holds a fixed number of players for a fixed time and
+// records throughput, start and answer latency percentiles, the allocation rate
+// and GC pauses; the whole run is written as JSON so builds can be compared.
+//
+//   java src.QuizLoadGenerator <questions.json|questions.bqb>
+//        [--target inprocess | loopback | http://host:port]  (default inprocess)
+//        [--players 100,1000,10000] [--seconds 20]
+//        [--think 500] [--think-dist exp|uniform|fixed]
+//        [--accuracy 0.5,0.7,0.9] [--out load.json] [--compare previous.json]
+//
+// inprocess plays through the same components the desktop app's startQuiz,
+// checkAnswer and endQuiz use; loopback starts a QuizServer on a free local port
+// and plays over HTTP, as a remote server given by URL would be played. Both keep
+// their stores in a temporary directory that is deleted afterwards.
+public class QuizLoadGenerator {
+
+    private final Map<String, Integer> answers = new HashMap<>();
+    private final ConcurrentLinkedQueue<Long> gcPauses = new ConcurrentLinkedQueue<>();
+    private final double thinkMillis;
+    private final String thinkDistribution;
+    private final double[] accuracy;
+
+    // One quiz in progress as the player sees it
+    private static class Turn {
+        final Object session;
+        final String question;
+        final boolean finished;
+
+        Turn(Object session, String question, boolean finished) {
+            this.session = session;
+            this.question = question;
+            this.finished = finished;
+        }
+    }
+
+    private interface Engine extends Closeable {
+        Turn start(String player) throws IOException, InterruptedException;
+
+        Turn answer(Turn turn, int option) throws IOException, InterruptedException;
+    }
+
+    public QuizLoadGenerator(List<Question> questions, double thinkMillis, String thinkDistribution, double[] accuracy) {
+        for (Question q : questions) {
+            answers.put(q.question, q.answerIndex());
+        }
+        this.thinkMillis = thinkMillis;
+        this.thinkDistribution = thinkDistribution;
+        this.accuracy = accuracy;
+        listenForGcPauses();
+    }
+
+    // Runs one step: players play until the time is up, then finish their current answer.
+    public Map<String, Object> runStep(Engine engine, int players, int seconds) throws InterruptedException {
+        LatencyHistogram startLatency = new LatencyHistogram(16);
+        LatencyHistogram answerLatency = new LatencyHistogram(16);
+        AtomicLong quizzes = new AtomicLong();
+        AtomicLong answered = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long stopAt = System.nanoTime() + seconds * 1_000_000_000L;
+        String stepId = Long.toString(System.nanoTime(), 36);
+
+        System.gc();
+        gcPauses.clear();
+        long allocatedBefore = allocatedBytes();
+        long gcCountBefore = gcCount();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int p = 0; p < players; p++) {
+                String player = "load-" + stepId + "-" + p;
+                double playerAccuracy = accuracy[p % accuracy.length];
+                executor.submit(() -> play(engine, player, playerAccuracy, stopAt,
+                        startLatency, answerLatency, quizzes, answered, errors));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long allocated = allocatedBytes() - allocatedBefore;
+        List<Long> pauses = new ArrayList<>(gcPauses);
+
+        Map<String, Object> step = new LinkedHashMap<>();
+        step.put("players", players);
+        step.put("seconds", round(elapsed));
+        step.put("quizzes", quizzes.get());
+        step.put("answers", answered.get());
+        step.put("errors", errors.get());
+        step.put("answersPerSecond", round(answered.get() / elapsed));
+        step.put("quizzesPerSecond", round(quizzes.get() / elapsed));
+        step.put("startP50Ms", round(startLatency.percentileMillis(50)));
+        step.put("startP99Ms", round(startLatency.percentileMillis(99)));
+        step.put("answerP50Ms", round(answerLatency.percentileMillis(50)));
+        step.put("answerP99Ms", round(answerLatency.percentileMillis(99)));
+        step.put("answerP999Ms", round(answerLatency.percentileMillis(99.9)));
+        step.put("answerMaxMs", round(answerLatency.max() / 1e6));
+        step.put("allocatedMbPerSecond", allocatedBefore < 0 ? -1 : round(allocated / 1e6 / elapsed));
+        step.put("allocatedKbPerAnswer", allocatedBefore < 0 || answered.get() == 0 ? -1
+                : round(allocated / 1e3 / answered.get()));
+        step.put("gcCount", gcCount() - gcCountBefore);
+        step.put("gcPauseTotalMs", pauses.stream().mapToLong(Long::longValue).sum());
+        step.put("gcPauseMaxMs", pauses.stream().mapToLong(Long::longValue).max().orElse(0));
+        return step;
+    }
+
+    private void play(Engine engine, String player, double playerAccuracy, long stopAt,
+                      LatencyHistogram startLatency, LatencyHistogram answerLatency,
+                      AtomicLong quizzes, AtomicLong answered, AtomicLong errors) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < stopAt) {
+            try {
+                long t = System.nanoTime();
+                Turn turn = engine.start(player);
+                startLatency.record(System.nanoTime() - t);
+                while (!turn.finished && System.nanoTime() < stopAt) {
+                    Thread.sleep(Duration.ofNanos(thinkNanos(random)));
+                    Integer correct = answers.get(turn.question);
+                    int option = correct != null && correct >= 0 && random.nextDouble() < playerAccuracy
+                            ? correct
+                            : (correct == null || correct < 0 ? 0 : correct + 1 + random.nextInt(3)) % 4;
+                    t = System.nanoTime();
+                    turn = engine.answer(turn, option);
+                    answerLatency.record(System.nanoTime() - t);
+                    answered.incrementAndGet();
+                }
+                if (turn.finished) {
+                    quizzes.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (errors.getAndIncrement() == 0) {
+                    System.err.println("Simulated player failed: " + e);
+                }
+            }
+        }
+    }
+
+    private long thinkNanos(ThreadLocalRandom random) {
+        double millis = switch (thinkDistribution) {
+            case "fixed" -> thinkMillis;
+            case "uniform" -> random.nextDouble(2 * thinkMillis);
+            default -> -thinkMillis * Math.log(1 - random.nextDouble()); // exponential
+        };
+        return (long) (millis * 1_000_000);
+    }
+
+    private void listenForGcPauses() {
+        NotificationListener listener = (notification, handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // Concurrent cycles run alongside the application and are not pauses, and the
+                // collection runStep asks for between steps is not the load's
+                if (!info.getGcName().contains("Concurrent") && !info.getGcName().contains("Cycles")
+                        && !"System.gc()".equals(info.getGcCause())) {
+                    gcPauses.add(info.getGcInfo().getDuration());
+                }
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    // Heap allocated by all threads so far, including virtual threads through their carriers; -1 if unsupported.
+    private static long allocatedBytes() {
+        try {
+            return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+        } catch (UnsupportedOperationException e) {
+            return -1;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // The app's flow without the screen: QuizSession plus the stores that startQuiz,
+    // checkAnswer and endQuiz update.
+    private static class InProcessEngine implements Engine {
+        private final QuestionBankSnapshot bank;
+        private final Path dataDir;
+        private final SeenQuestionStore seenQuestions;
+        private final PlayerAbilities abilities = new PlayerAbilities();
+        private final QuizTelemetry telemetry = new QuizTelemetry();
+        private final AnswerEventLog answerLog;
+        private final LeaderboardStore leaderboards;
+
+        InProcessEngine(QuestionBankSnapshot bank) throws IOException {
+            this.bank = bank;
+            this.dataDir = Files.createTempDirectory("quiz-load");
+            this.seenQuestions = new SeenQuestionStore(dataDir.resolve("seen"), 50_000);
+            this.answerLog = new AnswerEventLog(dataDir.resolve("answers"));
+            this.leaderboards = new LeaderboardStore(dataDir.resolve("leaderboard"));
+        }
+
+        @Override
+        public Turn start(String player) {
+            QuizSampler sampler = new QuizSampler(ThreadLocalRandom.current().nextLong()).avoiding(bank.getDuplicates());
+            QuizSession session = QuizSession.startAdaptive(UUID.randomUUID().toString(), bank.getQuestions(), sampler,
+                    bank.getDifficulty(), bank.getDuplicates(), abilities, seenQuestions, player);
+            session.setBankVersion(bank.getVersion());
+            session.setSecondsPerQuestion(QuizSession.SECONDS_PER_QUESTION);
+            return turn(session);
+        }
+
+        @Override
+        public Turn answer(Turn turn, int option) {
+            QuizSession session = (QuizSession) turn.session;
+            // Simulated think time is longer than a real player's would be allowed to be
+            session.startQuestionClock(System.nanoTime());
+            Question current = session.currentQuestion();
+            int index = session.getCurrentQuestionIndex();
+            boolean correct = session.answer(option, System.nanoTime());
+            telemetry.recordAnswer(current, session.getResponseNanos(index), correct);
+            answerLog.append(session.getId(), session.getQuestionIndex(index), option,
+                    correct ? AnswerEventLog.CORRECT : AnswerEventLog.WRONG, session.getResponseNanos(index));
+            if (!session.nextQuestion()) {
+                telemetry.recordSession(session);
+                seenQuestions.markSeen(session.getPlayerId(), session.getServedIndices());
+                leaderboards.submit(null, session.getPlayerId(), session.getPoints(), session.getScore(), session.getId());
+            }
+            return turn(session);
+        }
+
+        private static Turn turn(QuizSession session) {
+            Question q = session.currentQuestion();
+            return new Turn(session, q == null ? null : q.question, session.isFinished());
+        }
+
+        @Override
+        public void close() throws IOException {
+            answerLog.close();
+            leaderboards.close();
+            deleteRecursively(dataDir);
+        }
+    }
+
+    // Plays against QuizServer's HTTP API.
+    private static class HttpEngine implements Engine {
+        private final HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        private final Gson gson = new Gson();
+        private final String baseUrl;
+        private final Closeable server;
+
+        HttpEngine(String baseUrl, Closeable server) {
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            this.server = server;
+        }
+
+        // A QuizServer on a free loopback port with its stores in a temporary directory.
+        static HttpEngine loopback(QuestionBankSnapshot bank) throws IOException {
+            Path dataDir = Files.createTempDirectory("quiz-load");
+            QuizServer quizServer = new QuizServer(bank, new SeenQuestionStore(dataDir.resolve("seen"), 50_000),
+                    new AnswerEventLog(dataDir.resolve("answers")), new LeaderboardStore(dataDir.resolve("leaderboard")),
+                    null);
+            quizServer.start(0);
+            return new HttpEngine("http://127.0.0.1:" + quizServer.getPort(), () -> {
+                quizServer.stop();
+                deleteRecursively(dataDir);
+            });
+        }
+
+        @Override
+        public Turn start(String player) throws IOException, InterruptedException {
+            // The longest time limit, so think time never runs a question out
+            return post("/quiz?seconds=300&player=" + player);
+        }
+
+        @Override
+        public Turn answer(Turn turn, int option) throws IOException, InterruptedException {
+            return post("/quiz/answer?session=" + turn.session + "&option=option_" + (char) ('a' + option));
+        }
+
+        private Turn post(String path) throws IOException, InterruptedException {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode() + " for " + path + ": " + response.body());
+            }
+            Map<String, Object> body = gson.fromJson(response.body(), new TypeToken<Map<String, Object>>() {}.getType());
+            return new Turn(body.get("session"), (String) body.get("question"), Boolean.TRUE.equals(body.get("finished")));
+        }
+
+        @Override
+        public void close() throws IOException {
+            client.close();
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Prints how each step of this run moved against the same player count in an earlier one.
+    private static void compare(Path previousFile, List<Map<String, Object>> steps) throws IOException {
+        Map<String, Object> previous;
+        try (Reader reader = Files.newBufferedReader(previousFile, StandardCharsets.UTF_8)) {
+            previous = new Gson().fromJson(reader, new TypeToken<Map<String, Object>>() {}.getType());
+        }
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> before = (List<Map<String, Object>>) previous.get("steps");
+        System.out.println("Compared with " + previousFile + ":");
+        for (Map<String, Object> step : steps) {
+            for (Map<String, Object> old : before) {
+                if (((Number) old.get("players")).intValue() == (int) step.get("players")) {
+                    System.out.printf("  %6d players  answers/s %s  answer p99 %s  alloc MB/s %s%n", step.get("players"),
+                            change(old, step, "answersPerSecond"), change(old, step, "answerP99Ms"),
+                            change(old, step, "allocatedMbPerSecond"));
+                }
+            }
+        }
+    }
+
+    private static String change(Map<String, Object> before, Map<String, Object> after, String key) {
+        double a = ((Number) before.get(key)).doubleValue();
+        double b = ((Number) after.get(key)).doubleValue();
+        return a == 0 ? String.format("%.2f -> %.2f", a, b) : String.format("%.2f -> %.2f (%+.1f%%)", a, b, (b - a) * 100 / a);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: QuizLoadGenerator <bank> [--target inprocess|loopback|URL] [--players 100,1000]"
+                    + " [--seconds 20] [--think 500] [--think-dist exp|uniform|fixed] [--accuracy 0.5,0.7,0.9]"
+                    + " [--out load.json] [--compare previous.json]");
+            System.exit(2);
+        }
+        String target = "inprocess";
+        int[] playerCounts = {100, 1000};
+        int seconds = 20;
+        double think = 500;
+        String thinkDistribution = "exp";
+        double[] accuracy = {0.5, 0.7, 0.9};
+        Path out = Paths.get("load.json");
+        Path previous = null;
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--target" -> target = value;
+                case "--players" -> playerCounts = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--seconds" -> seconds = Integer.parseInt(value);
+                case "--think" -> think = Double.parseDouble(value);
+                case "--think-dist" -> thinkDistribution = value;
+                case "--accuracy" -> accuracy = Arrays.stream(value.split(",")).mapToDouble(Double::parseDouble).toArray();
+                case "--out" -> out = Paths.get(value);
+                case "--compare" -> previous = Paths.get(value);
+                default -> System.err.println("Ignoring unknown option " + args[i]);
+            }
+        }
+
+        QuestionBankSnapshot bank = QuestionBankSnapshot.load(Paths.get(args[0]));
+        QuizLoadGenerator generator = new QuizLoadGenerator(bank.getQuestions(), think, thinkDistribution, accuracy);
+        List<Map<String, Object>> steps = new ArrayList<>();
+        try (Engine engine = switch (target) {
+            case "inprocess" -> new InProcessEngine(bank);
+            case "loopback" -> HttpEngine.loopback(bank);
+            default -> new HttpEngine(target, null);
+        }) {
+            System.out.printf("%8s %10s %10s %10s %10s %10s %10s %8s %10s%n", "players", "answers/s", "start p99",
+                    "ans p50", "ans p99", "ans p99.9", "alloc MB/s", "gc", "gc max ms");
+            for (int players : playerCounts) {
+                Map<String, Object> step = generator.runStep(engine, players, seconds);
+                steps.add(step);
+                System.out.printf("%8d %10.1f %10.2f %10.2f %10.2f %10.2f %10.1f %8d %10d%n", players,
+                        step.get("answersPerSecond"), step.get("startP99Ms"), step.get("answerP50Ms"),
+                        step.get("answerP99Ms"), step.get("answerP999Ms"), step.get("allocatedMbPerSecond"),
+                        step.get("gcCount"), step.get("gcPauseMaxMs"));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("generatedAt", Instant.now().toString());
+        report.put("target", target);
+        report.put("bank", args[0]);
+        report.put("questions", bank.size());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("maxHeapMb", Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        report.put("gc", ManagementFactory.getGarbageCollectorMXBeans().stream().map(GarbageCollectorMXBean::getName).toList());
+        report.put("thinkMs", think);
+        report.put("thinkDistribution", thinkDistribution);
+        report.put("accuracy", accuracy);
+        report.put("steps", steps);
+        try (Writer writer = Files.newBufferedWriter(out, StandardCharsets.UTF_8)) {
+            new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+        }
+        System.out.println("Wrote " + out);
+        if (previous != null) {
+            compare(previous, steps);
+        }
+        bank.close();
+    }
+}
@@ -0,0 +1,548 @@
+package src;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+// Host mode: one presenter runs the quiz and every participant's device follows it
+// live over a plain TCP connection with one line per message. A single selector
+// thread owns all sockets and all room state; the presenter's calls are queued to
+// it, so nothing here is locked.
+//
+//   client -> server   JOIN <name>
+//                      ANSWER <question number> <option 0-3>
+//   server -> client   one JSON object per line: joined, question, answer (the
+//                      reveal), result (the player's own score and rank), leaderboard,
+//                      end, error
+//
+// A message for everyone is encoded once into a read-only ByteBuffer and each
+// connection queues a duplicate() of it, which shares the bytes and only has its
+// own position, so broadcasting to 10k sockets serialises nothing per client.
+// Answers are timestamped when the selector reads them and scored against the
+// moment that client's socket took the question, so being late in the fan-out or
+// behind a full socket buffer costs no speed points; answers arriving after the
+// time limit do not count, and neither do answers to a question the connection was
+// not sent. A player joining mid-question gets the open question, timed from when
+// it opened. The question closes itself once everyone's time is up.
+//
+// Writes never block. A client that stops reading piles up queued bytes, and once
+// that passes MAX_QUEUED_BYTES it is disconnected; rejoining with the same name
+// keeps its points.
+//
+// Usage: QuizRoomServer [port] [questions.json | questions.bqb] [seconds per question]
+public class QuizRoomServer {
+
+    private static final int MAX_QUEUED_BYTES = 256 * 1024;
+    private static final int MAX_LINE = 256;
+    private static final int MAX_NAME = 40;
+    private static final int LEADERBOARD_SIZE = 10;
+    private static final long LEADERBOARD_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    // How long after the time limit a question stays open for clients that got it late
+    static final long REVEAL_GRACE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // How long stop() keeps flushing what is still queued, e.g. the end of the quiz
+    private static final long DRAIN_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+    private final Queue<Runnable> hostCommands = new ConcurrentLinkedQueue<>();
+    private final Map<String, Player> players = new HashMap<>();
+    private final Set<Connection> connections = new LinkedHashSet<>();
+    private final Leaderboard leaderboard = new Leaderboard();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private volatile boolean running;
+    private boolean stopping;
+    private long stopNanos;
+    private volatile int connectionCount;
+    private long sequence;
+
+    // The open question, if any
+    private int questionNumber;
+    private int correctOption = -1;
+    private ByteBuffer questionMessage;
+    private long openNanos;
+    private long timeLimitNanos;
+    private boolean open;
+    private boolean leaderboardDirty;
+    private long lastLeaderboardNanos;
+
+    private static class Player {
+        final String name;
+        Connection connection;
+        int points;
+        int correct;
+        long responseMillis;
+        int answeredQuestion;
+        boolean lastCorrect;
+        int lastPoints;
+
+        Player(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>();
+        int queuedBytes;
+        Player player;
+        // This connection's view of the open question; once the socket has taken all of
+        // it, the question's number and when this connection's clock for it started
+        ByteBuffer questionView;
+        int questionReceived;
+        long questionSentNanos;
+        long joinedNanos;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    public void start(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 16_384);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        selectorThread = new Thread(this::run, "quiz-room-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        System.out.println("Quiz room open on port " + getPort());
+    }
+
+    // Runs after everything the presenter queued before it, then keeps flushing until
+    // every client has its messages or DRAIN_NANOS pass, and closes the room.
+    public void stop() {
+        if (selector == null) {
+            return;
+        }
+        host(() -> {
+            stopping = true;
+            stopNanos = System.nanoTime();
+        });
+        if (selectorThread != null) {
+            try {
+                selectorThread.join(TimeUnit.NANOSECONDS.toMillis(DRAIN_NANOS) + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    // Sends the question to everyone and starts its clock; it closes by itself once
+    // the time limit passes, or when the next question opens. number is 1-based.
+    public void openQuestion(int number, int total, Question q, int seconds) {
+        host(() -> {
+            if (open) {
+                reveal();
+            }
+            questionNumber = number;
+            correctOption = q.answerIndex();
+            timeLimitNanos = TimeUnit.SECONDS.toNanos(seconds);
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", "question");
+            message.put("number", number);
+            message.put("total", total);
+            message.put("question", q.question);
+            message.put("options", List.of(q.option_a, q.option_b, q.option_c, q.option_d));
+            message.put("seconds", seconds);
+            openNanos = System.nanoTime();
+            open = true;
+            questionMessage = encode(message);
+            broadcast(questionMessage);
+        });
+    }
+
+    public void endQuiz() {
+        host(() -> {
+            if (open) {
+                reveal();
+            }
+            broadcast(leaderboardMessage());
+            broadcast(encode(Map.of("type", "end")));
+        });
+    }
+
+    private void host(Runnable command) {
+        hostCommands.add(command);
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(100);
+                long now = System.nanoTime();
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        if (key.isReadable()) {
+                            read(connection, now);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(connection);
+                        }
+                    }
+                }
+                Runnable command;
+                while ((command = hostCommands.poll()) != null) {
+                    command.run();
+                }
+                now = System.nanoTime();
+                if (open && now - openNanos >= timeLimitNanos + REVEAL_GRACE_NANOS) {
+                    reveal();
+                }
+                if (leaderboardDirty && now - lastLeaderboardNanos >= LEADERBOARD_INTERVAL_NANOS) {
+                    broadcast(leaderboardMessage());
+                }
+                if (stopping && (now - stopNanos >= DRAIN_NANOS
+                        || connections.stream().allMatch(connection -> connection.out.isEmpty()))) {
+                    running = false;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Quiz room stopped: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            for (Connection connection : connections.toArray(new Connection[0])) {
+                close(connection);
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing quiz room: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            Connection connection = new Connection(channel, key);
+            key.attach(connection);
+            connections.add(connection);
+            connectionCount = connections.size();
+        }
+    }
+
+    private void read(Connection connection, long nowNanos) {
+        int n;
+        try {
+            n = connection.channel.read(connection.in);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            close(connection);
+            return;
+        }
+        ByteBuffer in = connection.in;
+        in.flip();
+        int lineStart = 0;
+        for (int i = 0; i < in.limit(); i++) {
+            if (in.get(i) == '\n') {
+                String line = new String(in.array(), lineStart, i - lineStart, StandardCharsets.UTF_8).trim();
+                lineStart = i + 1;
+                handle(connection, line, nowNanos);
+                if (!connection.channel.isOpen()) {
+                    return;
+                }
+            }
+        }
+        in.position(lineStart);
+        in.compact();
+        if (!in.hasRemaining()) {
+            // A line longer than anything the protocol sends
+            close(connection);
+        }
+    }
+
+    private void handle(Connection connection, String line, long nowNanos) {
+        if (line.startsWith("JOIN ")) {
+            join(connection, line.substring(5).trim());
+        } else if (line.startsWith("ANSWER ")) {
+            String[] parts = line.split(" ");
+            if (connection.player == null || parts.length != 3) {
+                sendError(connection, "Join first, then ANSWER <number> <option>");
+                return;
+            }
+            try {
+                answer(connection, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), nowNanos);
+            } catch (NumberFormatException e) {
+                sendError(connection, "Invalid answer: " + line);
+            }
+        } else if (!line.isEmpty()) {
+            sendError(connection, "Unknown command");
+        }
+    }
+
+    private void join(Connection connection, String name) {
+        if (name.isEmpty() || name.length() > MAX_NAME || connection.player != null) {
+            sendError(connection, "Choose a name of 1 to " + MAX_NAME + " characters, once");
+            return;
+        }
+        Player player = players.get(name);
+        if (player != null && player.connection != null) {
+            sendError(connection, "Name already taken: " + name);
+            return;
+        }
+        if (player == null) {
+            player = new Player(name);
+            players.put(name, player);
+            leaderboard.submit(entry(player));
+        }
+        player.connection = connection;
+        connection.player = player;
+        connection.joinedNanos = System.nanoTime();
+
+        Map<String, Object> joined = new LinkedHashMap<>();
+        joined.put("type", "joined");
+        joined.put("player", name);
+        joined.put("points", player.points);
+        joined.put("players", players.size());
+        send(connection, encode(joined));
+        if (open) {
+            send(connection, questionMessage);
+        }
+        leaderboardDirty = true;
+    }
+
+    private void answer(Connection connection, int number, int option, long nowNanos) {
+        Player player = connection.player;
+        // Only a connection that has been sent this question can answer it
+        if (!open || number != questionNumber || connection.questionReceived != number
+                || player.answeredQuestion == number) {
+            return;
+        }
+        long elapsed = Math.max(0, nowNanos - connection.questionSentNanos);
+        if (elapsed > timeLimitNanos) {
+            return;
+        }
+        player.answeredQuestion = number;
+        player.lastCorrect = option == correctOption;
+        player.lastPoints = 0;
+        if (player.lastCorrect) {
+            // Same scoring as a solo quiz, see QuizSession.BASE_POINTS
+            player.lastPoints = QuizSession.BASE_POINTS + (int) Math.round(QuizSession.SPEED_BONUS_POINTS
+                    * (double) (timeLimitNanos - elapsed) / timeLimitNanos);
+            player.points += player.lastPoints;
+            player.correct++;
+            player.responseMillis += TimeUnit.NANOSECONDS.toMillis(elapsed);
+            leaderboard.submit(entry(player));
+            leaderboardDirty = true;
+        }
+    }
+
+    // Ties on points go to whoever was faster over all their correct answers.
+    private Leaderboard.Entry entry(Player player) {
+        return new Leaderboard.Entry(player.name, player.points, player.correct, player.responseMillis, null, ++sequence);
+    }
+
+    // Closes the open question: everyone learns the answer, each player their own result.
+    private void reveal() {
+        open = false;
+        Map<String, Object> answer = new LinkedHashMap<>();
+        answer.put("type", "answer");
+        answer.put("number", questionNumber);
+        answer.put("answer", correctOption);
+        broadcast(encode(answer));
+        int total = leaderboard.size();
+        for (Connection connection : connections.toArray(new Connection[0])) {
+            Player player = connection.player;
+            if (player == null) {
+                continue;
+            }
+            boolean answered = player.answeredQuestion == questionNumber;
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("type", "result");
+            result.put("number", questionNumber);
+            result.put("answered", answered);
+            result.put("correct", answered && player.lastCorrect);
+            result.put("points", answered ? player.lastPoints : 0);
+            result.put("total", player.points);
+            result.put("rank", leaderboard.rankOf(player.name));
+            result.put("players", total);
+            send(connection, encode(result));
+        }
+        broadcast(leaderboardMessage());
+    }
+
+    private ByteBuffer leaderboardMessage() {
+        leaderboardDirty = false;
+        lastLeaderboardNanos = System.nanoTime();
+        List<Map<String, Object>> top = new ArrayList<>();
+        int rank = 0;
+        for (Leaderboard.Entry entry : leaderboard.top(LEADERBOARD_SIZE)) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("rank", ++rank);
+            row.put("player", entry.player);
+            row.put("points", entry.points);
+            top.add(row);
+        }
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "leaderboard");
+        message.put("players", leaderboard.size());
+        message.put("top", top);
+        return encode(message);
+    }
+
+    private ByteBuffer encode(Map<String, ?> message) {
+        byte[] bytes = (gson.toJson(message) + "\n").getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    private void sendError(Connection connection, String message) {
+        send(connection, encode(Map.of("type", "error", "message", message)));
+    }
+
+    private void broadcast(ByteBuffer message) {
+        for (Connection connection : connections.toArray(new Connection[0])) {
+            if (connection.player != null) {
+                send(connection, message);
+            }
+        }
+    }
+
+    // Queues a view of the shared message and writes what the socket takes right now.
+    private void send(Connection connection, ByteBuffer message) {
+        if (!connection.channel.isOpen()) {
+            return;
+        }
+        ByteBuffer view = message.duplicate();
+        if (message == questionMessage) {
+            connection.questionView = view;
+            connection.questionReceived = 0;
+        }
+        connection.out.add(view);
+        connection.queuedBytes += view.remaining();
+        if (connection.queuedBytes > MAX_QUEUED_BYTES) {
+            System.err.println("Disconnecting slow quiz room client " + describe(connection));
+            close(connection);
+            return;
+        }
+        if (connection.out.size() == 1) {
+            flush(connection);
+        }
+    }
+
+    private void flush(Connection connection) {
+        try {
+            while (!connection.out.isEmpty()) {
+                ByteBuffer head = connection.out.peek();
+                int written = connection.channel.write(head);
+                connection.queuedBytes -= written;
+                if (head.hasRemaining()) {
+                    // Socket buffer full: wait until the client reads
+                    connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (connection.out.poll() == connection.questionView) {
+                    // Someone joining mid-question, or rejoining, is timed from when it
+                    // opened, so reconnecting never buys speed points
+                    long now = System.nanoTime();
+                    connection.questionSentNanos = connection.joinedNanos - openNanos > 0 ? openNanos : now;
+                    connection.questionReceived = questionNumber;
+                    connection.questionView = null;
+                }
+            }
+            connection.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException | CancelledKeyException e) {
+            close(connection);
+        }
+    }
+
+    private void close(Connection connection) {
+        if (connection.player != null && connection.player.connection == connection) {
+            connection.player.connection = null;
+        }
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+        connections.remove(connection);
+        connectionCount = connections.size();
+    }
+
+    private static String describe(Connection connection) {
+        return connection.player != null ? connection.player.name : String.valueOf(connection.channel);
+    }
+
+    // Headless presenter: Enter opens the next question, "q" ends the quiz.
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        QuestionBankSnapshot bank = args.length > 1
+                ? QuestionBankSnapshot.load(Paths.get(args[1]))
+                : QuestionBankSnapshot.of("/resources/data/questions.json",
+                        QuestionLoader.loadQuestionsFromResource("/resources/data/questions.json"));
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : QuizSession.SECONDS_PER_QUESTION;
+        QuizSession session = QuizSession.start("room", bank.getQuestions(), new QuizSampler(new Random().nextLong()));
+
+        QuizRoomServer room = new QuizRoomServer();
+        room.start(port);
+        System.out.println("Press Enter for each question, q to finish");
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        boolean quit = false;
+        while (!session.isFinished()) {
+            if ((line = console.readLine()) == null || line.trim().equals("q")) {
+                quit = true;
+                break;
+            }
+            Question q = session.currentQuestion();
+            room.openQuestion(session.getCurrentQuestionIndex() + 1, session.size(), q, seconds);
+            System.out.printf("Question %d sent to %d connections: %s%n",
+                    session.getCurrentQuestionIndex() + 1, room.getConnectionCount(), q.question);
+            session.nextQuestion();
+        }
+        if (!quit) {
+            // The last question is open: give the room its time before revealing it
+            System.out.println("Last question sent, press Enter to end the quiz");
+            if (console.readLine() == null) {
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(seconds) + TimeUnit.NANOSECONDS.toMillis(REVEAL_GRACE_NANOS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        room.endQuiz();
+        room.stop();
+    }
+}
@@ -0,0 +1,232 @@
+package src;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.IntUnaryOperator;
+
+// Draws k distinct question indices out of n in O(k) time and memory using a
+// partial Fisher-Yates shuffle over a sparse swap map, so the bank is never
+// copied or boxed. The generator is SplitMix64 seeded with a full 64-bit value,
+// which makes every quiz reproducible from its seed ("challenge code") as long
+// as the bank is the same. When given duplicate clusters, at most one member of
+// each cluster is drawn per quiz.
+public class QuizSampler {
+
+    private final long seed;
+    private long state;
+    private DuplicateClusters duplicates;
+
+    public QuizSampler(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    public static int[] sample(int n, int k, long seed) {
+        return new QuizSampler(seed).sample(n, k);
+    }
+
+    public QuizSampler avoiding(DuplicateClusters duplicates) {
+        this.duplicates = duplicates;
+        return this;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Returns min(k, n) distinct indices in [0, n), in draw order.
+    public int[] sample(int n, int k) {
+        return draw(n, k, IntUnaryOperator.identity(), newGuard());
+    }
+
+    // Partial Fisher-Yates over virtual positions [0, n); each position is mapped to a
+    // bank index and kept unless its duplicate cluster is already in the quiz.
+    private int[] draw(int n, int k, IntUnaryOperator toIndex, DuplicateClusters.Guard guard) {
+        int count = Math.min(k, n);
+        int[] result = new int[count];
+        SwapMap swaps = new SwapMap(count);
+        int accepted = 0;
+        for (int i = 0; i < n && accepted < count; i++) {
+            int j = i + nextInt(n - i);
+            int position = swaps.get(j);
+            swaps.put(j, swaps.get(i));
+            int index = toIndex.applyAsInt(position);
+            if (guard == null || guard.accept(index)) {
+                result[accepted++] = index;
+            }
+        }
+        return accepted == count ? result : Arrays.copyOf(result, accepted);
+    }
+
+    private DuplicateClusters.Guard newGuard() {
+        return duplicates == null ? null : duplicates.newGuard();
+    }
+
+    // Draws from the indices in [0, n) that are not in the excluded set. The unseen
+    // indices are treated as a virtual array of size n - |excluded| and each draw is
+    // mapped back with selectZero, so the bank is never scanned.
+    public int[] sampleExcluding(int n, int k, CompressedBitmap excluded) {
+        int available = n - excluded.rank(n - 1);
+        return draw(available, k, excluded::selectZero, newGuard());
+    }
+
+    // Draws k distinct members of the candidate set, mapping positions back with select.
+    public int[] sampleFrom(CompressedBitmap candidates, int k) {
+        return draw(candidates.cardinality(), k, candidates::select, newGuard());
+    }
+
+    // Samples from several categories at once. Each stratum lists the bank indices in
+    // that category; the k slots are shared out in proportion to stratum size
+    // (largest remainder), then each stratum is sampled independently.
+    public int[] sampleStratified(int[][] strata, int k) {
+        long total = 0;
+        for (int[] stratum : strata) {
+            total += stratum.length;
+        }
+        int count = (int) Math.min(k, total);
+        if (count == 0) {
+            return new int[0];
+        }
+
+        int[] quota = new int[strata.length];
+        double[] remainder = new double[strata.length];
+        int assigned = 0;
+        for (int s = 0; s < strata.length; s++) {
+            double exact = (double) count * strata[s].length / total;
+            quota[s] = (int) exact;
+            remainder[s] = exact - quota[s];
+            assigned += quota[s];
+        }
+        while (assigned < count) {
+            int best = -1;
+            for (int s = 0; s < strata.length; s++) {
+                if (quota[s] < strata[s].length && (best < 0 || remainder[s] > remainder[best])) {
+                    best = s;
+                }
+            }
+            quota[best]++;
+            remainder[best] = -1;
+            assigned++;
+        }
+
+        int[] result = new int[count];
+        int pos = 0;
+        DuplicateClusters.Guard guard = newGuard();
+        for (int s = 0; s < strata.length; s++) {
+            int[] stratum = strata[s];
+            for (int index : draw(stratum.length, quota[s], local -> stratum[local], guard)) {
+                result[pos++] = index;
+            }
+        }
+        if (pos < count) {
+            result = Arrays.copyOf(result, pos);
+            count = pos;
+        }
+        // Interleave the strata so categories are not served in blocks.
+        for (int i = count - 1; i > 0; i--) {
+            int j = nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Uniform in [0, bound) without modulo bias.
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+            // retry the draw that fell into the biased tail
+        }
+        return r;
+    }
+
+    public static String toChallengeCode(long seed) {
+        return Long.toUnsignedString(seed, 36).toUpperCase(Locale.ROOT);
+    }
+
+    public static long fromChallengeCode(String code) {
+        return Long.parseUnsignedLong(code.trim().toLowerCase(Locale.ROOT), 36);
+    }
+
+    // Open-addressing int -> int map that treats missing keys as identity (key -> key),
+    // which is exactly the view of the untouched part of the virtual index array.
+    // A draw that rejects duplicates keeps swapping past k positions, so the table
+    // doubles whenever it gets half full.
+    private static class SwapMap {
+        private int[] keys;
+        private int[] values;
+        private int mask;
+        private int size;
+
+        SwapMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 4) - 1) << 1;
+            keys = new int[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+            Arrays.fill(keys, -1);
+        }
+
+        int get(int key) {
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+                if (keys[slot] == -1) return key;
+            }
+        }
+
+        void put(int key, int value) {
+            for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                if (keys[slot] == -1) {
+                    keys[slot] = key;
+                    values[slot] = value;
+                    if (++size * 2 > keys.length) {
+                        grow();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            mask = keys.length - 1;
+            Arrays.fill(keys, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (keys[slot] != -1) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,609 @@
+package src;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless multi-session mode: every phone in the hall plays its own QuizSession
+// against one shared, read-only question bank. When started from a bank file the
+// file is watched and a new snapshot is swapped in without a restart.
+//
+//   POST /quiz[?player=NAME][&event=NAME][&challenge=CODE][&seconds=N][&adaptive=false]
+//             [&mode=study][&lang=pt-BR]
+//             [&testament=..&book=A,B&chapter=John 3&difficulty=..&tag=..]
+//                                       -> start a session, returns the first question
+//   GET  /quiz/facets[?lang=pt-BR]      -> known metadata values for filtering
+//   GET  /quiz/question?session=ID      -> current question
+//   POST /quiz/answer?session=ID&option=option_b
+//   GET  /stats                         -> active sessions and answer latency percentiles
+//   GET  /stats/telemetry               -> player response times, correctness and timeouts
+//                                          globally, per question and for recent sessions
+//   GET  /leaderboard[?board=global|EVENT][&from=N][&top=K][&player=NAME]
+//                                       -> ranked best results, and the player's rank
+//
+// A named player's quiz is adaptive unless it is a challenge or filtered: each
+// question is the one rated closest to the player's current ability, see
+// QuestionDifficulty. Pass adaptive=false for a uniformly drawn quiz instead.
+// mode=study serves the player's spaced-repetition cards untimed, see
+// StudyScheduler; study sessions do not go on the leaderboard.
+//
+// lang picks a translated bank from the bank directory, loaded on first use and
+// cached, see QuestionBankCache; without it, or when no bank matches the language,
+// the server's own bank is used. Seen questions, ability and study cards are kept
+// per bank.
+//
+// A finished quiz with a player name goes on the global leaderboard and, when
+// started with an event, on that event's board too.
+//
+// With -Dbiblequiz.telemetry=FILE the telemetry snapshot is also written to FILE
+// every minute and on shutdown.
+//
+// Usage: QuizServer [port] [questions.json | questions.bqb]
+public class QuizServer {
+
+    private static final long SESSION_TTL_NANOS = TimeUnit.MINUTES.toNanos(30);
+    private static final int MIN_SECONDS = 5;
+    private static final int MAX_SECONDS = 300;
+
+    private volatile QuestionBankSnapshot bank;
+    private final SeenQuestionStore seenQuestions;
+    private final PlayerAbilities abilities = new PlayerAbilities();
+    private QuestionBankWatcher watcher;
+    private QuestionBankCache languages;
+    private final Map<String, QuizSession> sessions = new ConcurrentHashMap<>();
+    private final LatencyHistogram answerLatency = new LatencyHistogram(16);
+    private final QuizTelemetry telemetry = new QuizTelemetry();
+    private final AnswerEventLog answerLog;
+    private final LeaderboardStore leaderboards;
+    private final StudyScheduler studyScheduler;
+    private final Path telemetryFile = System.getProperty("biblequiz.telemetry") != null
+            ? Paths.get(System.getProperty("biblequiz.telemetry")) : null;
+    private final AtomicLong sessionsStarted = new AtomicLong();
+    private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "quiz-session-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+    private HttpServer server;
+
+    public QuizServer(List<Question> allQuestions, SeenQuestionStore seenQuestions) {
+        this(QuestionBankSnapshot.of("memory", allQuestions), seenQuestions);
+    }
+
+    public QuizServer(QuestionBankSnapshot bank, SeenQuestionStore seenQuestions) {
+        this(bank, seenQuestions, null, null, null);
+    }
+
+    // answerLog, leaderboards and studyScheduler may be null to run without durable
+    // answer history, rankings or study mode.
+    public QuizServer(QuestionBankSnapshot bank, SeenQuestionStore seenQuestions, AnswerEventLog answerLog,
+                      LeaderboardStore leaderboards, StudyScheduler studyScheduler) {
+        this.bank = bank;
+        this.seenQuestions = seenQuestions;
+        this.answerLog = answerLog;
+        this.leaderboards = leaderboards;
+        this.studyScheduler = studyScheduler;
+    }
+
+    // Reloads the bank whenever the file changes. Sessions already running keep the
+    // questions they were started with.
+    public void watch(Path bankFile) throws IOException {
+        watcher = new QuestionBankWatcher(bankFile, this::install);
+    }
+
+    // Serves lang= requests from these banks.
+    public void serveLanguages(QuestionBankCache banks) {
+        languages = banks;
+    }
+
+    public void install(QuestionBankSnapshot next) {
+        QuestionBankSnapshot previous = bank;
+        next.inheritRatings(previous);
+        bank = next;
+        try {
+            previous.close();
+        } catch (IOException e) {
+            System.err.println("Error closing previous question bank: " + e.getMessage());
+        }
+    }
+
+    public QuestionBankSnapshot getBank() {
+        return bank;
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 4096);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/quiz/answer", this::handleAnswer);
+        server.createContext("/quiz/question", this::handleQuestion);
+        server.createContext("/quiz/facets", this::handleFacets);
+        server.createContext("/quiz", this::handleStart);
+        server.createContext("/stats/telemetry", this::handleTelemetry);
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/leaderboard", this::handleLeaderboard);
+        server.start();
+        sweeper.scheduleAtFixedRate(this::removeIdleSessions, 1, 1, TimeUnit.MINUTES);
+        if (leaderboards != null) {
+            sweeper.scheduleAtFixedRate(this::syncLeaderboards, 1, 1, TimeUnit.SECONDS);
+        }
+        if (telemetryFile != null) {
+            sweeper.scheduleAtFixedRate(this::exportTelemetry, 1, 1, TimeUnit.MINUTES);
+        }
+        System.out.println("Bible Quiz server listening on port " + server.getAddress().getPort()
+                + " with " + bank.size() + " questions");
+    }
+
+    public void stop() {
+        sweeper.shutdownNow();
+        if (telemetryFile != null) {
+            exportTelemetry();
+        }
+        if (answerLog != null) {
+            try {
+                answerLog.close();
+            } catch (IOException e) {
+                System.err.println("Error closing answer log: " + e.getMessage());
+            }
+        }
+        if (leaderboards != null) {
+            try {
+                leaderboards.close();
+            } catch (IOException e) {
+                System.err.println("Error closing leaderboards: " + e.getMessage());
+            }
+        }
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping bank watcher: " + e.getMessage());
+            }
+        }
+        if (languages != null) {
+            languages.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public LatencyHistogram getAnswerLatency() {
+        return answerLatency;
+    }
+
+    public QuizTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    private void exportTelemetry() {
+        try {
+            telemetry.export(telemetryFile);
+        } catch (IOException e) {
+            System.err.println("Error exporting telemetry: " + e.getMessage());
+        }
+    }
+
+    private void syncLeaderboards() {
+        try {
+            leaderboards.sync();
+        } catch (IOException e) {
+            System.err.println("Error syncing leaderboards: " + e.getMessage());
+        }
+    }
+
+    private void handleStart(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use POST to start a quiz");
+            return;
+        }
+        Map<String, String> params = queryParams(exchange);
+        String challenge = params.get("challenge");
+        String player = params.get("player");
+        boolean study = "study".equals(params.get("mode"));
+        if (study && (player == null || studyScheduler == null)) {
+            sendError(exchange, 400, studyScheduler == null ? "Study mode is not enabled" : "Study mode needs a player");
+            return;
+        }
+        long seed;
+        try {
+            seed = challenge != null ? QuizSampler.fromChallengeCode(challenge) : ThreadLocalRandom.current().nextLong();
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "Invalid challenge code");
+            return;
+        }
+        QuizFilter filter = new QuizFilter()
+                .testament(listParam(params, "testament"))
+                .books(listParam(params, "book"))
+                .chapters(listParam(params, "chapter"))
+                .difficulty(listParam(params, "difficulty"))
+                .tags(listParam(params, "tag"));
+        // One snapshot for the whole request, even if a reload lands meanwhile
+        String bankName = bankName(params);
+        QuestionBankSnapshot snapshot;
+        try {
+            snapshot = bankNamed(bankName);
+        } catch (IOException e) {
+            sendError(exchange, 503, e.getMessage());
+            return;
+        }
+        String historyKey = player == null || bankName == null ? player : player + "@" + bankName;
+        List<Question> allQuestions = snapshot.getQuestions();
+        if (!filter.isEmpty() && snapshot.getIndex().count(filter) == 0) {
+            sendError(exchange, 404, "No questions match " + filter);
+            return;
+        }
+
+        int seconds;
+        try {
+            seconds = params.containsKey("seconds") ? Integer.parseInt(params.get("seconds")) : QuizSession.SECONDS_PER_QUESTION;
+        } catch (NumberFormatException e) {
+            seconds = -1;
+        }
+        if (seconds < MIN_SECONDS || seconds > MAX_SECONDS) {
+            sendError(exchange, 400, "seconds must be between " + MIN_SECONDS + " and " + MAX_SECONDS);
+            return;
+        }
+
+        String id = UUID.randomUUID().toString();
+        QuizSampler sampler = new QuizSampler(seed).avoiding(snapshot.getDuplicates());
+        QuizSession session;
+        if (study) {
+            session = QuizSession.startStudy(id, allQuestions, sampler, studyScheduler, historyKey);
+            seconds = StudyScheduler.SECONDS_PER_CARD;
+        } else if (!filter.isEmpty()) {
+            session = QuizSession.startFiltered(id, allQuestions, sampler, snapshot.getIndex(), filter, seenQuestions, historyKey);
+        } else if (player != null && challenge == null && !"false".equals(params.get("adaptive"))) {
+            session = QuizSession.startAdaptive(id, allQuestions, sampler, snapshot.getDifficulty(),
+                    snapshot.getDuplicates(), abilities, seenQuestions, historyKey);
+        } else if (player != null && challenge == null) {
+            session = QuizSession.startForPlayer(id, allQuestions, sampler, seenQuestions, historyKey);
+        } else {
+            // Challenge quizzes must be identical for everyone, so they ignore seen history
+            session = QuizSession.start(id, allQuestions, sampler);
+        }
+        session.setBankVersion(snapshot.getVersion());
+        session.setBankName(bankName);
+        session.setSecondsPerQuestion(seconds);
+        session.setLeaderboard(player, params.get("event"));
+        sessions.put(id, session);
+        sessionsStarted.incrementAndGet();
+        send(exchange, 200, questionResponse(session));
+    }
+
+    private void handleQuestion(HttpExchange exchange) throws IOException {
+        QuizSession session = findSession(exchange);
+        if (session == null) {
+            return;
+        }
+        expireIfTimeUp(session);
+        send(exchange, 200, questionResponse(session));
+    }
+
+    private void handleAnswer(HttpExchange exchange) throws IOException {
+        long startNanos = System.nanoTime();
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            sendError(exchange, 405, "Use POST to answer");
+            return;
+        }
+        QuizSession session = findSession(exchange);
+        if (session == null) {
+            return;
+        }
+        int option = Question.answerIndex(queryParams(exchange).get("option"));
+        if (option < 0) {
+            sendError(exchange, 400, "Option must be one of option_a..option_d");
+            return;
+        }
+
+        Map<String, Object> response;
+        synchronized (session) {
+            if (expireIfTimeUp(session) || session.isFinished()) {
+                response = questionResponse(session);
+                response.put("timeUp", true);
+            } else {
+                Question answered = session.currentQuestion();
+                int answeredIndex = session.getCurrentQuestionIndex();
+                boolean isCorrect = session.answer(option, startNanos);
+                telemetry.recordAnswer(answered, session.getResponseNanos(answeredIndex), isCorrect);
+                if (answerLog != null) {
+                    answerLog.append(session.getId(), session.getQuestionIndex(answeredIndex), option,
+                            isCorrect ? AnswerEventLog.CORRECT : AnswerEventLog.WRONG, session.getResponseNanos(answeredIndex));
+                }
+                session.nextQuestion();
+                response = questionResponse(session);
+                response.put("correct", isCorrect);
+                response.put("answer", answered.answer);
+                response.put("responseMs", session.getResponseNanos(answeredIndex) / 1_000_000);
+            }
+        }
+        if (session.isFinished()) {
+            finishSession(session);
+        }
+        send(exchange, 200, response);
+        answerLatency.record(System.nanoTime() - startNanos);
+    }
+
+    private void handleFacets(HttpExchange exchange) throws IOException {
+        QuestionIndex index;
+        try {
+            index = bankNamed(bankName(queryParams(exchange))).getIndex();
+        } catch (IOException e) {
+            sendError(exchange, 503, e.getMessage());
+            return;
+        }
+        Map<String, Object> facets = new LinkedHashMap<>();
+        for (String facet : List.of(QuestionIndex.TESTAMENT, QuestionIndex.BOOK, QuestionIndex.DIFFICULTY, QuestionIndex.TAG)) {
+            facets.put(facet, new TreeSet<>(index.values(facet)));
+        }
+        send(exchange, 200, facets);
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeSessions", sessions.size());
+        stats.put("sessionsStarted", sessionsStarted.get());
+        stats.put("bankVersion", bank.getVersion());
+        stats.put("questions", bank.size());
+        stats.put("answers", answerLatency.getCount());
+        stats.put("answerP50Ms", answerLatency.percentileMillis(50));
+        stats.put("answerP99Ms", answerLatency.percentileMillis(99));
+        stats.put("answerP999Ms", answerLatency.percentileMillis(99.9));
+        if (answerLog != null) {
+            stats.put("answerLogDurable", answerLog.getDurable());
+            stats.put("answerLogDropped", answerLog.getDropped());
+            stats.put("answerLogBatches", answerLog.getBatches());
+        }
+        send(exchange, 200, stats);
+    }
+
+    private void handleTelemetry(HttpExchange exchange) throws IOException {
+        send(exchange, 200, telemetry.snapshot());
+    }
+
+    private void handleLeaderboard(HttpExchange exchange) throws IOException {
+        if (leaderboards == null) {
+            sendError(exchange, 404, "Leaderboards are not enabled");
+            return;
+        }
+        Map<String, String> params = queryParams(exchange);
+        String board = params.getOrDefault("board", LeaderboardStore.GLOBAL);
+        int from;
+        int top;
+        try {
+            from = Integer.parseInt(params.getOrDefault("from", "0"));
+            top = Integer.parseInt(params.getOrDefault("top", "10"));
+        } catch (NumberFormatException e) {
+            sendError(exchange, 400, "from and top must be numbers");
+            return;
+        }
+        if (from < 0 || top < 0 || top > 1000) {
+            sendError(exchange, 400, "top must be between 0 and 1000");
+            return;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("board", board);
+        response.put("players", leaderboards.size(board));
+        List<Map<String, Object>> entries = new ArrayList<>();
+        int rank = from;
+        for (Leaderboard.Entry entry : leaderboards.range(board, from, top)) {
+            entries.add(leaderboardEntry(++rank, entry));
+        }
+        response.put("entries", entries);
+        String player = params.get("player");
+        if (player != null) {
+            Leaderboard.Entry entry = leaderboards.get(board, player);
+            int playerRank = leaderboards.rankOf(board, player);
+            response.put("player", entry == null || playerRank < 0 ? null : leaderboardEntry(playerRank, entry));
+        }
+        send(exchange, 200, response);
+    }
+
+    private static Map<String, Object> leaderboardEntry(int rank, Leaderboard.Entry entry) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("rank", rank);
+        row.put("player", entry.player);
+        row.put("points", entry.points);
+        row.put("correct", entry.correct);
+        row.put("completedAt", entry.completedMillis);
+        return row;
+    }
+
+    private boolean expireIfTimeUp(QuizSession session) {
+        synchronized (session) {
+            if (!session.isFinished() && session.isTimeUp(System.nanoTime())) {
+                telemetry.recordTimeout(session.currentQuestion());
+                if (answerLog != null) {
+                    answerLog.append(session.getId(), session.getQuestionIndex(session.getCurrentQuestionIndex()), -1,
+                            AnswerEventLog.TIMEOUT, session.getTimeLimitNanos());
+                }
+                session.timeUp();
+                finishSession(session);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private void finishSession(QuizSession session) {
+        finishSession(session, true);
+    }
+
+    // Runs once per session, whichever of finishing or expiring comes first. An
+    // abandoned quiz still counts in telemetry and its questions as seen, but only a
+    // finished one goes on the leaderboard.
+    private void finishSession(QuizSession session, boolean completed) {
+        if (sessions.remove(session.getId()) == null) {
+            return;
+        }
+        telemetry.recordSession(session);
+        // Indices from a replaced bank may point at different questions now, so they are not recorded
+        QuestionBankSnapshot current = session.getBankName() == null ? bank : languages.getIfCached(session.getBankName());
+        if (session.getPlayerId() != null && current != null && session.getBankVersion() == current.getVersion()) {
+            seenQuestions.markSeen(session.getPlayerId(), session.getServedIndices());
+        }
+        if (completed && leaderboards != null && session.getLeaderboardPlayer() != null && !session.isStudy()) {
+            leaderboards.submit(session.getEvent(), session.getLeaderboardPlayer(), session.getPoints(),
+                    session.getScore(), session.getId());
+        }
+    }
+
+    private Map<String, Object> questionResponse(QuizSession session) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("session", session.getId());
+        response.put("challenge", session.getChallengeCode());
+        response.put("score", session.getScore());
+        response.put("points", session.getPoints());
+        response.put("total", session.size());
+        response.put("finished", session.isFinished());
+        if (session.isStudy()) {
+            response.put("study", true);
+        }
+        if (session.isAdaptive()) {
+            response.put("ability", Math.round(session.getAbility()));
+        }
+
+        Question q = session.currentQuestion();
+        if (q != null) {
+            response.put("index", session.getCurrentQuestionIndex());
+            response.put("question", q.question);
+            response.put("options", List.of(q.option_a, q.option_b, q.option_c, q.option_d));
+            response.put("seconds", session.getSecondsPerQuestion());
+        }
+        return response;
+    }
+
+    // The language bank for the lang parameter, or null for the server's own bank.
+    private String bankName(Map<String, String> params) {
+        String lang = params.get("lang");
+        if (lang == null || languages == null) {
+            return null;
+        }
+        String name = languages.resolve(lang);
+        return name.equals(QuestionBankCache.DEFAULT_BANK) ? null : name;
+    }
+
+    // Waits for a language bank that is still loading; requests for the same one share the load.
+    private QuestionBankSnapshot bankNamed(String name) throws IOException {
+        if (name == null) {
+            return bank;
+        }
+        try {
+            return languages.get(name).join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not load questions " + name + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private QuizSession findSession(HttpExchange exchange) throws IOException {
+        String id = queryParams(exchange).get("session");
+        QuizSession session = id == null ? null : sessions.get(id);
+        if (session == null) {
+            sendError(exchange, 404, "Unknown or finished session");
+        }
+        return session;
+    }
+
+    private void removeIdleSessions() {
+        long now = System.nanoTime();
+        for (QuizSession session : sessions.values()) {
+            if (now - session.getLastAccessNanos() > SESSION_TTL_NANOS) {
+                synchronized (session) {
+                    finishSession(session, session.isFinished());
+                }
+            }
+        }
+    }
+
+    private static String[] listParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        return value == null ? new String[0] : value.split(",");
+    }
+
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, Map.of("error", message));
+    }
+
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long start = System.nanoTime();
+        QuestionBankSnapshot bank;
+        if (args.length > 1) {
+            try {
+                bank = QuestionBankSnapshot.load(Paths.get(args[1]));
+            } catch (IOException e) {
+                System.err.println("No questions loaded, server not started: " + e.getMessage());
+                System.exit(1);
+                return;
+            }
+        } else {
+            List<Question> questions = QuestionLoader.loadQuestionsFromResource("/resources/data/questions.json");
+            if (questions == null || questions.isEmpty()) {
+                System.err.println("No questions loaded, server not started.");
+                System.exit(1);
+            }
+            bank = QuestionBankSnapshot.of("/resources/data/questions.json", questions);
+        }
+        System.out.printf("Loaded and indexed %d questions in %d ms (%d duplicate clusters)%n", bank.size(),
+                (System.nanoTime() - start) / 1_000_000, bank.getDuplicates().getClusters().size());
+
+        Path dataDir = Paths.get(System.getProperty("biblequiz.data", "data"));
+        QuizServer quizServer = new QuizServer(bank, new SeenQuestionStore(dataDir.resolve("seen"), 50_000),
+                new AnswerEventLog(dataDir.resolve("answers")), new LeaderboardStore(dataDir.resolve("leaderboard")),
+                new StudyScheduler(dataDir.resolve("study"), 50_000));
+        quizServer.serveLanguages(new QuestionBankCache(Paths.get(System.getProperty("biblequiz.banks", "resources/data")),
+                QuestionBankCache.budgetFromSystemProperty(), null));
+        quizServer.start(port);
+        if (args.length > 1) {
+            quizServer.watch(Paths.get(args[1]));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            LatencyHistogram latency = quizServer.getAnswerLatency();
+            System.out.printf("Answers: %d, p50 %.3f ms, p99 %.3f ms%n",
+                    latency.getCount(), latency.percentileMillis(50), latency.percentileMillis(99));
+            quizServer.stop();
+        }));
+    }
+}
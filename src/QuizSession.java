@@ -0,0 +1,439 @@
+package src;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// UI-free quiz state for a single player. The JavaFX screen and the HTTP
+// server both drive the same start -> answer -> next -> end flow through it.
+public class QuizSession {
+
+    public static final int QUIZ_SIZE = 15;
+    public static final int SECONDS_PER_QUESTION = 30;
+    // A correct answer is worth BASE_POINTS plus a speed bonus of up to
+    // SPEED_BONUS_POINTS, scaled by the share of the time limit left.
+    public static final int BASE_POINTS = 100;
+    public static final int SPEED_BONUS_POINTS = 100;
+
+    private final String id;
+    private final List<Question> quizQuestions;
+    private final int[] questionIndices;
+    private int size;
+    private long seed;
+    private String playerId;
+    private String leaderboardPlayer;
+    private String event;
+    private long bankVersion;
+    private String bankName;
+    private boolean reproducible = true;
+    private int currentQuestionIndex = 0;
+    private int score = 0;
+    private int points = 0;
+    private long timeLimitNanos = TimeUnit.SECONDS.toNanos(SECONDS_PER_QUESTION);
+    private final long[] responseNanos;
+    private boolean answered = false;
+    private boolean finished = false;
+    private long questionStartNanos;
+    private volatile long lastAccessNanos;
+
+    // Set for quizzes that choose each question once the previous one is answered
+    private List<Question> allQuestions;
+    private QuestionPicker picker;
+    private boolean study;
+
+    // Chooses a quiz's questions one at a time, after seeing how the previous one
+    // went. Called with the session's lock held.
+    public interface QuestionPicker {
+        // Bank index for position count given the questions before it, or -1 to end the quiz.
+        int next(int[] chosen, int count);
+
+        // Outcome of the question at the given bank index; a timeout is a wrong answer.
+        void answered(int question, boolean correct, long responseNanos);
+    }
+
+    public QuizSession(String id, List<Question> quizQuestions, int[] questionIndices) {
+        this(id, quizQuestions, questionIndices, quizQuestions.size());
+    }
+
+    private QuizSession(String id, List<Question> quizQuestions, int[] questionIndices, int size) {
+        this.id = id;
+        this.quizQuestions = quizQuestions;
+        this.questionIndices = questionIndices;
+        this.size = size;
+        this.finished = size == 0;
+        this.responseNanos = new long[size];
+        Arrays.fill(responseNanos, -1);
+        this.questionStartNanos = System.nanoTime();
+        this.lastAccessNanos = questionStartNanos;
+    }
+
+    // Draws up to 15 unique questions; the same seed and bank always give the same quiz.
+    public static QuizSession start(String id, List<Question> allQuestions, QuizSampler sampler) {
+        return start(id, allQuestions, sampler.getSeed(), sampler.sample(allQuestions.size(), QUIZ_SIZE));
+    }
+
+    // Draws only questions the player has not seen yet. Once fewer than a full quiz
+    // remain unseen, the player's history is reset and a new cycle begins.
+    public static QuizSession startForPlayer(String id, List<Question> allQuestions, QuizSampler sampler,
+                                             SeenQuestionStore seenQuestions, String playerId) {
+        int n = allQuestions.size();
+        CompressedBitmap seen = seenQuestions.getSeen(playerId);
+        if (n - seen.rank(n - 1) < Math.min(QUIZ_SIZE, n)) {
+            seenQuestions.reset(playerId);
+            seen = new CompressedBitmap();
+        }
+        int[] indices = sampler.sampleExcluding(n, QUIZ_SIZE, seen);
+        QuizSession session = start(id, allQuestions, sampler.getSeed(), indices);
+        session.playerId = playerId;
+        // With history excluded the seed alone no longer reproduces the quiz
+        session.reproducible = seen.cardinality() == 0;
+        return session;
+    }
+
+    // Draws from the questions matching the filter, preferring ones the player has not
+    // seen. A narrow filter may not have enough unseen questions, in which case seen
+    // ones are allowed back in rather than resetting the player's whole history.
+    public static QuizSession startFiltered(String id, List<Question> allQuestions, QuizSampler sampler,
+                                            QuestionIndex index, QuizFilter filter,
+                                            SeenQuestionStore seenQuestions, String playerId) {
+        CompressedBitmap candidates = index.matching(filter);
+        if (candidates == null) {
+            return playerId == null ? start(id, allQuestions, sampler)
+                    : startForPlayer(id, allQuestions, sampler, seenQuestions, playerId);
+        }
+        if (playerId != null) {
+            CompressedBitmap unseen = CompressedBitmap.andNot(candidates, seenQuestions.getSeen(playerId));
+            if (unseen.cardinality() >= Math.min(QUIZ_SIZE, candidates.cardinality())) {
+                candidates = unseen;
+            }
+        }
+        int[] indices = sampler.sampleFrom(candidates, QUIZ_SIZE);
+        QuizSession session = start(id, allQuestions, sampler.getSeed(), indices);
+        session.playerId = playerId;
+        session.reproducible = false;
+        return session;
+    }
+
+    // Picks each question as the quiz goes: the one whose live difficulty rating is
+    // closest to the player's current ability, preferring questions they have not
+    // seen. Every answer updates both ratings, so the next pick already reflects it.
+    public static QuizSession startAdaptive(String id, List<Question> allQuestions, QuizSampler sampler,
+                                            QuestionDifficulty difficulty, DuplicateClusters duplicates,
+                                            PlayerAbilities abilities, SeenQuestionStore seenQuestions,
+                                            String playerId) {
+        AdaptivePicker picker = new AdaptivePicker(difficulty, abilities, abilities.slot(playerId),
+                seenQuestions.getSeen(playerId), sampler, duplicates == null ? null : duplicates.newGuard());
+        return startPicked(id, allQuestions, sampler.getSeed(), Math.min(QUIZ_SIZE, allQuestions.size()), picker, playerId);
+    }
+
+    // A study session: the player's due spaced-repetition cards, then new ones, see
+    // StudyScheduler. A card missed early in the session can come round again.
+    public static QuizSession startStudy(String id, List<Question> allQuestions, QuizSampler sampler,
+                                         StudyScheduler scheduler, String playerId) {
+        QuizSession session = startPicked(id, allQuestions, sampler.getSeed(),
+                Math.min(StudyScheduler.STUDY_SIZE, allQuestions.size()),
+                scheduler.picker(playerId, allQuestions.size(), sampler), playerId);
+        session.study = true;
+        return session;
+    }
+
+    private static QuizSession startPicked(String id, List<Question> allQuestions, long seed, int size,
+                                           QuestionPicker picker, String playerId) {
+        QuizSession session = new QuizSession(id, new ArrayList<>(size), new int[size], size);
+        session.seed = seed;
+        session.reproducible = false;
+        session.playerId = playerId;
+        session.allQuestions = allQuestions;
+        session.picker = picker;
+        session.chooseNext();
+        session.finished = session.size == 0;
+        return session;
+    }
+
+    public static QuizSession start(String id, List<Question> allQuestions, long seed, int[] indices) {
+        List<Question> quizQuestions = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            quizQuestions.add(allQuestions.get(index));
+        }
+        QuizSession session = new QuizSession(id, quizQuestions, indices);
+        session.seed = seed;
+        return session;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    // Version of the QuestionBankSnapshot the question indices refer to.
+    public long getBankVersion() {
+        return bankVersion;
+    }
+
+    public void setBankVersion(long bankVersion) {
+        this.bankVersion = bankVersion;
+    }
+
+    // Name of a language bank from QuestionBankCache, or null for the default bank.
+    public String getBankName() {
+        return bankName;
+    }
+
+    public void setBankName(String bankName) {
+        this.bankName = bankName;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Returns null when the quiz cannot be replayed from its seed.
+    public String getChallengeCode() {
+        return reproducible ? QuizSampler.toChallengeCode(seed) : null;
+    }
+
+    public synchronized Question currentQuestion() {
+        return finished ? null : quizQuestions.get(currentQuestionIndex);
+    }
+
+    public synchronized int getCurrentQuestionIndex() {
+        return currentQuestionIndex;
+    }
+
+    // Number of correct answers.
+    public synchronized int getScore() {
+        return score;
+    }
+
+    // Speed-weighted score, see BASE_POINTS.
+    public synchronized int getPoints() {
+        return points;
+    }
+
+    public synchronized void setSecondsPerQuestion(int seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("Time limit must be positive: " + seconds);
+        }
+        this.timeLimitNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    public synchronized int getSecondsPerQuestion() {
+        return (int) TimeUnit.NANOSECONDS.toSeconds(timeLimitNanos);
+    }
+
+    public synchronized long getTimeLimitNanos() {
+        return timeLimitNanos;
+    }
+
+    // Restarts the current question's clock, for callers that show the question
+    // some time after the session moved on to it.
+    public synchronized void startQuestionClock(long nowNanos) {
+        questionStartNanos = nowNanos;
+    }
+
+    // Time left on the current question, between 0 and the time limit.
+    public synchronized long remainingNanos(long nowNanos) {
+        return Math.max(0, Math.min(timeLimitNanos, timeLimitNanos - (nowNanos - questionStartNanos)));
+    }
+
+    // How long the player took to answer a question, or -1 if it was not answered.
+    public synchronized long getResponseNanos(int question) {
+        return responseNanos[question];
+    }
+
+    // Mean response time over the answered questions, or 0 if none were answered.
+    public synchronized double getAverageResponseMillis() {
+        long total = 0;
+        int answeredCount = 0;
+        for (long nanos : responseNanos) {
+            if (nanos >= 0) {
+                total += nanos;
+                answeredCount++;
+            }
+        }
+        return answeredCount == 0 ? 0 : total / 1e6 / answeredCount;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Bank index of the question at the given position in this quiz.
+    public int getQuestionIndex(int question) {
+        return questionIndices[question];
+    }
+
+    public synchronized int[] getQuestionIndices() {
+        return Arrays.copyOf(questionIndices, quizQuestions.size());
+    }
+
+    // Bank indices of the questions actually shown, i.e. up to where the quiz ended.
+    public synchronized int[] getServedIndices() {
+        return Arrays.copyOf(questionIndices, Math.min(currentQuestionIndex + 1, quizQuestions.size()));
+    }
+
+    public String getPlayerId() {
+        return playerId;
+    }
+
+    // Name the result is ranked under when the quiz ends, and the event board it
+    // also counts for; challenge quizzes have a player here but no playerId.
+    public void setLeaderboard(String player, String event) {
+        this.leaderboardPlayer = player;
+        this.event = event;
+    }
+
+    public String getLeaderboardPlayer() {
+        return leaderboardPlayer;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    public synchronized boolean isAnswered() {
+        return answered;
+    }
+
+    public synchronized double getPercentage() {
+        return size == 0 ? 0 : (double) score / size;
+    }
+
+    public boolean isAdaptive() {
+        return picker instanceof AdaptivePicker;
+    }
+
+    public boolean isStudy() {
+        return study;
+    }
+
+    // The player's current ability estimate, or NaN for a quiz that is not adaptive.
+    public double getAbility() {
+        return picker instanceof AdaptivePicker adaptive ? adaptive.ability() : Double.NaN;
+    }
+
+    public boolean answer(int selectedOption) {
+        return answer(selectedOption, System.nanoTime());
+    }
+
+    // Records the player's choice for the current question and returns whether it
+    // was correct. Only the first answer per question counts.
+    public synchronized boolean answer(int selectedOption, long nowNanos) {
+        touch();
+        if (finished || answered) {
+            throw new IllegalStateException("Question already answered");
+        }
+        answered = true;
+        long elapsed = Math.max(0, Math.min(timeLimitNanos, nowNanos - questionStartNanos));
+        responseNanos[currentQuestionIndex] = elapsed;
+        boolean isCorrect = selectedOption == quizQuestions.get(currentQuestionIndex).answerIndex();
+        if (isCorrect) {
+            score++;
+            points += BASE_POINTS + (int) Math.round(SPEED_BONUS_POINTS * (double) (timeLimitNanos - elapsed) / timeLimitNanos);
+        }
+        if (picker != null) {
+            picker.answered(questionIndices[currentQuestionIndex], isCorrect, elapsed);
+        }
+        return isCorrect;
+    }
+
+    // Running out of time ends the quiz, as it does on the desktop screen. A picker
+    // sees it as a wrong answer.
+    public synchronized void timeUp() {
+        touch();
+        if (picker != null && !answered && !finished) {
+            picker.answered(questionIndices[currentQuestionIndex], false, timeLimitNanos);
+        }
+        answered = true;
+        finished = true;
+    }
+
+    public synchronized boolean isTimeUp(long nowNanos) {
+        return !answered && nowNanos - questionStartNanos >= timeLimitNanos;
+    }
+
+    // Moves on to the next question; returns false once the quiz is over.
+    public synchronized boolean nextQuestion() {
+        touch();
+        if (!finished) {
+            currentQuestionIndex++;
+            answered = false;
+            questionStartNanos = System.nanoTime();
+            if (picker != null && currentQuestionIndex < size) {
+                chooseNext();
+            }
+            finished = currentQuestionIndex >= size;
+        }
+        return !finished;
+    }
+
+    // Appends the picker's choice for the current position, or ends the quiz here
+    // when it has nothing more to offer.
+    private void chooseNext() {
+        int position = quizQuestions.size();
+        int next = picker.next(questionIndices, position);
+        if (next < 0) {
+            size = position;
+            return;
+        }
+        questionIndices[position] = next;
+        quizQuestions.add(allQuestions.get(next));
+    }
+
+    // Each question is the one rated closest to the player's current ability, see
+    // QuestionDifficulty; unseen questions are preferred and none is asked twice.
+    private static class AdaptivePicker implements QuestionPicker {
+        private final QuestionDifficulty difficulty;
+        private final PlayerAbilities abilities;
+        private final int playerSlot;
+        private final CompressedBitmap seen;
+        private final QuizSampler sampler;
+        private final DuplicateClusters.Guard guard;
+
+        AdaptivePicker(QuestionDifficulty difficulty, PlayerAbilities abilities, int playerSlot,
+                       CompressedBitmap seen, QuizSampler sampler, DuplicateClusters.Guard guard) {
+            this.difficulty = difficulty;
+            this.abilities = abilities;
+            this.playerSlot = playerSlot;
+            this.seen = seen;
+            this.sampler = sampler;
+            this.guard = guard;
+        }
+
+        double ability() {
+            return abilities.get(playerSlot);
+        }
+
+        @Override
+        public int next(int[] chosen, int count) {
+            return difficulty.closest(ability(),
+                    q -> !seen.contains(q) && notIn(chosen, count, q) && (guard == null || guard.accept(q)),
+                    q -> notIn(chosen, count, q) && (guard == null || guard.accept(q)),
+                    sampler);
+        }
+
+        @Override
+        public void answered(int question, boolean correct, long responseNanos) {
+            difficulty.record(abilities, playerSlot, question, correct);
+        }
+
+        private static boolean notIn(int[] chosen, int count, int question) {
+            for (int i = 0; i < count; i++) {
+                if (chosen[i] == question) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    private void touch() {
+        lastAccessNanos = System.nanoTime();
+    }
+}
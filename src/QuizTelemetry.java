@@ -0,0 +1,189 @@
+package src;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// How players perform, aggregated globally, per question and per session. Every
+// record method is lock-free and safe to call from any number of sessions at once;
+// a question's counters are allocated the first time it is answered, after that
+// recording allocates nothing. snapshot() and export() read a consistent-enough
+// view for reporting while recording carries on.
+public class QuizTelemetry {
+
+    private static final int STRIPES = 16;
+    private static final int RECENT_SESSIONS = 256;
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final LatencyHistogram responseTimes = new LatencyHistogram(STRIPES);
+    private final LongAdder correct = new LongAdder();
+    private final LongAdder wrong = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder points = new LongAdder();
+    // Keyed by question text, so counts survive a bank reload that reorders questions
+    private final Map<String, QuestionStats> questions = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<SessionSummary> recentSessions = new AtomicReferenceArray<>(RECENT_SESSIONS);
+    private final AtomicLong sessionSequence = new AtomicLong();
+    private final long startedMillis = System.currentTimeMillis();
+
+    public void recordAnswer(Question q, long responseNanos, boolean isCorrect) {
+        responseTimes.record(responseNanos);
+        (isCorrect ? correct : wrong).increment();
+        QuestionStats stats = statsFor(q);
+        stats.answered.increment();
+        stats.totalResponseNanos.add(responseNanos);
+        if (isCorrect) {
+            stats.correct.increment();
+        }
+    }
+
+    public void recordTimeout(Question q) {
+        timeouts.increment();
+        statsFor(q).timeouts.increment();
+    }
+
+    // Call once when a session ends; keeps a summary of the most recent sessions.
+    public void recordSession(QuizSession session) {
+        sessions.increment();
+        points.add(session.getPoints());
+        SessionSummary summary = new SessionSummary(session);
+        recentSessions.set((int) (sessionSequence.getAndIncrement() % RECENT_SESSIONS), summary);
+    }
+
+    public LatencyHistogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> global = new LinkedHashMap<>();
+        global.put("sessions", sessions.sum());
+        global.put("answers", correct.sum() + wrong.sum());
+        global.put("correct", correct.sum());
+        global.put("wrong", wrong.sum());
+        global.put("timeouts", timeouts.sum());
+        global.put("points", points.sum());
+        global.put("responseMs", histogramSummary(responseTimes));
+
+        List<Map<String, Object>> perQuestion = new ArrayList<>(questions.size());
+        questions.forEach((text, stats) -> perQuestion.add(stats.toMap(text)));
+        // Hardest questions first
+        perQuestion.sort(Comparator.comparingDouble(m -> (double) m.get("correctRate")));
+
+        List<SessionSummary> recent = new ArrayList<>();
+        for (int i = 0; i < RECENT_SESSIONS; i++) {
+            SessionSummary summary = recentSessions.get(i);
+            if (summary != null) {
+                recent.add(summary);
+            }
+        }
+        recent.sort(Comparator.comparingLong((SessionSummary s) -> s.endedMillis).reversed());
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("startedMillis", startedMillis);
+        snapshot.put("snapshotMillis", System.currentTimeMillis());
+        snapshot.put("global", global);
+        snapshot.put("questions", perQuestion);
+        snapshot.put("recentSessions", recent);
+        return snapshot;
+    }
+
+    // Writes the snapshot as JSON, replacing the file atomically so readers never
+    // see half an export.
+    public void export(Path file) throws IOException {
+        Path target = file.toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(snapshot(), out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private QuestionStats statsFor(Question q) {
+        QuestionStats stats = questions.get(q.question);
+        return stats != null ? stats : questions.computeIfAbsent(q.question, text -> new QuestionStats());
+    }
+
+    private static Map<String, Object> histogramSummary(LatencyHistogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getCount());
+        for (double p : PERCENTILES) {
+            summary.put("p" + (int) p, histogram.percentileMillis(p));
+        }
+        summary.put("max", histogram.max() / 1_000_000.0);
+        return summary;
+    }
+
+    private static class QuestionStats {
+        final LongAdder answered = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder totalResponseNanos = new LongAdder();
+
+        Map<String, Object> toMap(String question) {
+            long answeredCount = answered.sum();
+            long correctCount = correct.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("question", question);
+            map.put("answered", answeredCount);
+            map.put("correct", correctCount);
+            map.put("timeouts", timeouts.sum());
+            map.put("correctRate", answeredCount == 0 ? 0.0 : (double) correctCount / answeredCount);
+            map.put("meanResponseMs", answeredCount == 0 ? 0.0 : totalResponseNanos.sum() / 1e6 / answeredCount);
+            return map;
+        }
+    }
+
+    // Immutable per-session figures, serialised as is by Gson.
+    private static class SessionSummary {
+        final String session;
+        final String player;
+        final long endedMillis;
+        final int questions;
+        final int answered;
+        final int correct;
+        final boolean timedOut;
+        final int points;
+        final double meanResponseMs;
+        final double medianResponseMs;
+
+        SessionSummary(QuizSession s) {
+            this.session = s.getId();
+            this.player = s.getPlayerId();
+            this.endedMillis = System.currentTimeMillis();
+            this.questions = s.size();
+            this.correct = s.getScore();
+            this.points = s.getPoints();
+            long[] responses = new long[s.size()];
+            int n = 0;
+            for (int i = 0; i < s.size(); i++) {
+                if (s.getResponseNanos(i) >= 0) {
+                    responses[n++] = s.getResponseNanos(i);
+                }
+            }
+            this.answered = n;
+            // A quiz only ends early by running out of time
+            this.timedOut = n < s.size() && s.isFinished();
+            Arrays.sort(responses, 0, n);
+            this.meanResponseMs = s.getAverageResponseMillis();
+            this.medianResponseMs = n == 0 ? 0 : responses[n / 2] / 1e6;
+        }
+    }
+}
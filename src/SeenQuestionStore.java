@@ -0,0 +1,147 @@
+package src;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Persistent per-player "already seen" question sets. Each player's set is a
+// CompressedBitmap of bank indices stored in its own small file, sharded into
+// 256 directories; only recently active players are kept in memory.
+//
+// Players are guarded by STRIPES locks chosen by player, which every read, write
+// and file access for that player holds, so players on other stripes never wait
+// on someone else's disk write. The map of resident players has its own lock,
+// held only to look up, add or evict, never across I/O.
+public class SeenQuestionStore {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int STRIPES = 64;
+    // Longer IDs would exceed the file system's 255-byte name limit, so they are hashed
+    private static final int MAX_ENCODED_NAME = 128;
+
+    private final Path directory;
+    private final Map<String, CompressedBitmap> resident;
+    private final Object[] stripes = new Object[STRIPES];
+
+    public SeenQuestionStore(Path directory, int maxResidentPlayers) {
+        this.directory = directory;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.resident = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompressedBitmap> eldest) {
+                // Sets are written through on every change, so eviction never loses data.
+                return size() > maxResidentPlayers;
+            }
+        };
+    }
+
+    // Returns a private copy of the player's set, safe to use outside the store.
+    public CompressedBitmap getSeen(String playerId) {
+        synchronized (stripe(playerId)) {
+            return load(playerId).copy();
+        }
+    }
+
+    public void markSeen(String playerId, int[] questionIndices) {
+        if (questionIndices.length == 0) {
+            return;
+        }
+        synchronized (stripe(playerId)) {
+            CompressedBitmap seen = load(playerId);
+            seen.addAll(questionIndices);
+            save(playerId, seen);
+        }
+    }
+
+    public void reset(String playerId) {
+        synchronized (stripe(playerId)) {
+            synchronized (resident) {
+                resident.put(playerId, new CompressedBitmap());
+            }
+            try {
+                Files.deleteIfExists(fileFor(playerId));
+            } catch (IOException e) {
+                System.err.println("Could not reset seen questions for " + playerId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Object stripe(String playerId) {
+        return stripes[playerId.hashCode() & (STRIPES - 1)];
+    }
+
+    // Called holding the player's stripe. A player evicted while its stripe is held
+    // is simply read back from its file, which is always up to date.
+    private CompressedBitmap load(String playerId) {
+        CompressedBitmap seen;
+        synchronized (resident) {
+            seen = resident.get(playerId);
+        }
+        if (seen != null) {
+            return seen;
+        }
+        Path file = fileFor(playerId);
+        seen = new CompressedBitmap();
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Unknown format");
+                }
+                seen = CompressedBitmap.read(in);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable seen questions for " + playerId + ": " + e.getMessage());
+            }
+        }
+        synchronized (resident) {
+            resident.put(playerId, seen);
+        }
+        return seen;
+    }
+
+    private void save(String playerId, CompressedBitmap seen) {
+        seen.runOptimize();
+        Path file = fileFor(playerId);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                seen.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Could not save seen questions for " + playerId + ": " + e.getMessage());
+        }
+    }
+
+    private Path fileFor(String playerId) {
+        return directory.resolve(shard(playerId)).resolve(fileName(playerId) + ".seen");
+    }
+
+    static String shard(String playerId) {
+        return String.format("%02x", playerId.hashCode() & 0xFF);
+    }
+
+    // The player ID in URL-safe Base64, or for long IDs '~' and the SHA-256 of it in
+    // hex; '~' is not a Base64 character, so the two kinds of name never collide.
+    static String fileName(String playerId) {
+        byte[] id = playerId.getBytes(StandardCharsets.UTF_8);
+        String name = Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+        if (name.length() <= MAX_ENCODED_NAME) {
+            return name;
+        }
+        try {
+            return "~" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(id));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package src;
+
+import javax.sound.sampled.*;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+
+// Sound cues for quiz feedback. Every cue is decoded to 16-bit stereo PCM in memory
+// when the engine opens, which the app does on its startup loader thread, and one
+// output line is opened then and kept running for the life of the app. A mixer
+// thread feeds the line short blocks, silence when nothing is playing, so a cue
+// starts at the next block instead of waiting for a line to open or a file to
+// decode; the line's buffer is only a few blocks, which bounds how long that is.
+// Up to VOICES cues play at once and are mixed, so overlapping sounds do not cut
+// each other off or stutter.
+//
+// A cue without a file in /resources/sounds/, or whose file cannot be decoded, is
+// played as a short synthesized tone instead. Press-to-sound latency is measured
+// for every cue as the time the request waited for the mixer plus the audio queued
+// in the line ahead of it, and logged when the engine closes:
+//
+//   sound cues=40 press_to_sound_p50_ms=26.2 p99_ms=30.4 max_ms=30.4
+public class SoundEngine implements Closeable {
+
+    public enum Cue {
+        CORRECT("correct", 880, 1320, 180),
+        WRONG("wrong", 220, 165, 300),
+        TIME_UP("timeup", 440, 220, 500),
+        TICK("tick", 1000, 1000, 40),
+        START("start", 523, 784, 250),
+        FINISH("finish", 659, 1047, 400);
+
+        final String file;
+        // Fallback tone: a sweep from one pitch to the other
+        final double fromHz;
+        final double toHz;
+        final int millis;
+
+        Cue(String file, double fromHz, double toHz, int millis) {
+            this.file = file;
+            this.fromHz = fromHz;
+            this.toHz = toHz;
+            this.millis = millis;
+        }
+    }
+
+    static final float SAMPLE_RATE = 44100;
+    static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+    private static final int FRAME_BYTES = 4;
+    private static final String SOUND_DIR = "/resources/sounds/";
+    // 256 frames is 5.8 ms; the line holds LINE_BLOCKS of them ahead of the speaker
+    private static final int FRAMES_PER_BLOCK = 256;
+    private static final int LINE_BLOCKS = 4;
+    private static final int VOICES = 8;
+    private static final int MAX_PENDING = 32;
+
+    private final short[][] cues = new short[Cue.values().length][];
+    private final SourceDataLine line;
+    private final ArrayBlockingQueue<Request> requests = new ArrayBlockingQueue<>(MAX_PENDING);
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Thread mixer;
+    private volatile boolean running = true;
+
+    // Playing cues, indexed by voice; cue -1 is a free voice
+    private final int[] voiceCue = new int[VOICES];
+    private final int[] voicePosition = new int[VOICES];
+    private final long[] voiceStarted = new long[VOICES];
+    private long voiceSequence;
+
+    private static class Request {
+        final int cue;
+        final long pressNanos;
+
+        Request(int cue, long pressNanos) {
+            this.cue = cue;
+            this.pressNanos = pressNanos;
+        }
+    }
+
+    // Decodes every cue and opens the default output. Without an audio device the
+    // engine still opens and play() does nothing.
+    public static SoundEngine open() {
+        SourceDataLine line = null;
+        try {
+            line = AudioSystem.getSourceDataLine(FORMAT);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("Sound disabled, no audio output: " + e.getMessage());
+        }
+        return new SoundEngine(line);
+    }
+
+    SoundEngine(SourceDataLine output) {
+        for (Cue cue : Cue.values()) {
+            cues[cue.ordinal()] = load(cue);
+        }
+        Arrays.fill(voiceCue, -1);
+        if (output != null) {
+            try {
+                output.open(FORMAT, FRAMES_PER_BLOCK * LINE_BLOCKS * FRAME_BYTES);
+                output.start();
+            } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+                System.err.println("Sound disabled, could not open audio output: " + e.getMessage());
+                output = null;
+            }
+        }
+        this.line = output;
+        if (line != null) {
+            mixer = new Thread(this::mix, "sound-mixer");
+            mixer.setDaemon(true);
+            mixer.setPriority(Thread.MAX_PRIORITY);
+            mixer.start();
+        } else {
+            mixer = null;
+        }
+    }
+
+    public boolean isAvailable() {
+        return line != null;
+    }
+
+    // Starts the cue at the mixer's next block. pressNanos is the System.nanoTime()
+    // of the input that caused it, and is what latency is measured from. Never blocks;
+    // with MAX_PENDING cues already waiting the cue is dropped.
+    public void play(Cue cue, long pressNanos) {
+        if (line != null) {
+            requests.offer(new Request(cue.ordinal(), pressNanos));
+        }
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    // Decoded samples of a cue, interleaved left and right.
+    short[] samples(Cue cue) {
+        return cues[cue.ordinal()];
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (mixer != null) {
+            try {
+                mixer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            line.stop();
+            line.close();
+        }
+        if (latency.getCount() > 0) {
+            System.out.printf("sound cues=%d press_to_sound_p50_ms=%.1f p99_ms=%.1f max_ms=%.1f%n",
+                    latency.getCount(), latency.percentileMillis(50), latency.percentileMillis(99),
+                    latency.max() / 1e6);
+        }
+    }
+
+    private void mix() {
+        int[] sum = new int[FRAMES_PER_BLOCK * 2];
+        byte[] block = new byte[FRAMES_PER_BLOCK * FRAME_BYTES];
+        double bytesPerNano = SAMPLE_RATE * FRAME_BYTES / 1e9;
+        while (running) {
+            Request request;
+            while ((request = requests.poll()) != null) {
+                // This block goes into the line behind what is already queued there
+                long queuedBytes = line.getBufferSize() - line.available();
+                latency.record(System.nanoTime() - request.pressNanos + (long) (queuedBytes / bytesPerNano));
+                startVoice(request.cue);
+            }
+
+            Arrays.fill(sum, 0);
+            for (int v = 0; v < VOICES; v++) {
+                if (voiceCue[v] < 0) {
+                    continue;
+                }
+                short[] samples = cues[voiceCue[v]];
+                int position = voicePosition[v];
+                int n = Math.min(sum.length, samples.length - position);
+                for (int i = 0; i < n; i++) {
+                    sum[i] += samples[position + i];
+                }
+                voicePosition[v] = position + n;
+                if (voicePosition[v] >= samples.length) {
+                    voiceCue[v] = -1;
+                }
+            }
+            for (int i = 0; i < sum.length; i++) {
+                int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sum[i]));
+                block[2 * i] = (byte) s;
+                block[2 * i + 1] = (byte) (s >> 8);
+            }
+            // Blocks while the line is full, which paces the loop to the sound card
+            line.write(block, 0, block.length);
+        }
+    }
+
+    // A free voice, or else the one that has been playing longest.
+    private void startVoice(int cue) {
+        int chosen = 0;
+        for (int v = 0; v < VOICES; v++) {
+            if (voiceCue[v] < 0) {
+                chosen = v;
+                break;
+            }
+            if (voiceStarted[v] < voiceStarted[chosen]) {
+                chosen = v;
+            }
+        }
+        voiceCue[chosen] = cue;
+        voicePosition[chosen] = 0;
+        voiceStarted[chosen] = voiceSequence++;
+    }
+
+    private static short[] load(Cue cue) {
+        String path = SOUND_DIR + cue.file + ".wav";
+        InputStream resource = SoundEngine.class.getResourceAsStream(path);
+        if (resource == null) {
+            return tone(cue);
+        }
+        try (InputStream in = new BufferedInputStream(resource);
+             AudioInputStream source = AudioSystem.getAudioInputStream(in);
+             AudioInputStream pcm = AudioSystem.getAudioInputStream(FORMAT, source)) {
+            return toSamples(pcm.readAllBytes());
+        } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+            System.err.println("Error loading sound " + path + ", using a tone instead: " + e.getMessage());
+            return tone(cue);
+        }
+    }
+
+    private static short[] toSamples(byte[] bytes) {
+        short[] samples = new short[bytes.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+        }
+        return samples;
+    }
+
+    // A sine sweep with a 5 ms fade in and out, so it starts and stops without a click.
+    static short[] tone(Cue cue) {
+        int frames = (int) (SAMPLE_RATE * cue.millis / 1000);
+        int fade = (int) (SAMPLE_RATE * 0.005);
+        short[] samples = new short[frames * 2];
+        double phase = 0;
+        for (int f = 0; f < frames; f++) {
+            double hz = cue.fromHz + (cue.toHz - cue.fromHz) * f / frames;
+            phase += 2 * Math.PI * hz / SAMPLE_RATE;
+            double envelope = Math.min(1, Math.min(f, frames - 1 - f) / (double) fade);
+            short s = (short) (Math.sin(phase) * envelope * 0.3 * Short.MAX_VALUE);
+            samples[2 * f] = s;
+            samples[2 * f + 1] = s;
+        }
+        return samples;
+    }
+}
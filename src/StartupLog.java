@@ -0,0 +1,34 @@
+package src;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Times the phases of startup and logs them in one greppable line each, so
+// time-to-interactive can be compared across releases:
+//
+//   startup phase=bank took_ms=412 at_ms=431
+//   startup phase=interactive at_ms=433 since_jvm_ms=1210
+public class StartupLog {
+
+    private final long startNanos = System.nanoTime();
+
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    // Logs a phase that started at phaseStartNanos (from begin()) and has just ended.
+    public void phase(String name, long phaseStartNanos) {
+        long now = System.nanoTime();
+        System.out.printf("startup phase=%s took_ms=%d at_ms=%d%n",
+                name, (now - phaseStartNanos) / 1_000_000, (now - startNanos) / 1_000_000);
+    }
+
+    public void interactive() {
+        long atMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        // Includes JVM and toolkit startup, which the phases above cannot see
+        long sinceJvm = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()).toMillis())
+                .orElse(-1L);
+        System.out.printf("startup phase=interactive at_ms=%d since_jvm_ms=%d%n", atMillis, sinceJvm);
+    }
+}
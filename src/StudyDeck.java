@@ -0,0 +1,309 @@
+package src;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// One player's spaced-repetition cards, scheduled with SM-2. A card is a bank
+// index plus its review state, held in parallel primitive arrays; a binary min-heap
+// of slots ordered by due time makes "what is due next" O(1) and every review
+// O(log n), and an open-addressing map finds a question's slot without boxing.
+//
+// A missed card goes back through short learning steps (1 then 10 minutes) so it
+// returns in the same sitting; once answered right it graduates to 1 day, 6 days and
+// then the previous interval times its ease factor. Times are whole minutes since
+// the epoch, which keeps a card at 18 bytes on disk.
+public class StudyDeck {
+
+    public static final int MIN_EASE = 1300;      // SM-2 ease factors, in thousandths
+    public static final int INITIAL_EASE = 2500;
+    private static final int[] LEARNING_STEPS = {1, 10};
+    private static final int ONE_DAY = 24 * 60;
+    static final int SUSPENDED = Integer.MAX_VALUE;
+    static final int RECORD_BYTES = 18;
+
+    private int size;
+    private int[] question = new int[16];
+    private int[] due = new int[16];
+    private int[] interval = new int[16];
+    private short[] ease = new short[16];
+    private short[] reps = new short[16];
+    private short[] lapses = new short[16];
+    private int[] heap = new int[16];
+    private int[] heapPosition = new int[16];
+    private int[] mapKeys = newMap(32);
+    private int[] mapSlots = new int[32];
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int q) {
+        return slotOf(q) >= 0;
+    }
+
+    // Due time of the card in minutes since the epoch, or -1 if the question is not in the deck.
+    public int dueMinute(int q) {
+        int slot = slotOf(q);
+        return slot < 0 ? -1 : due[slot];
+    }
+
+    // The earliest-due question other than the excluded one that is due by the given
+    // minute, or -1. The runner-up of a heap is one of the root's children.
+    public int nextDue(int byMinute, int excluded) {
+        if (size == 0) {
+            return -1;
+        }
+        int best = heap[0];
+        if (question[best] == excluded) {
+            if (size == 1) {
+                return -1;
+            }
+            best = heap[1];
+            if (size > 2 && due[heap[2]] < due[best]) {
+                best = heap[2];
+            }
+        }
+        return due[best] <= byMinute && due[best] != SUSPENDED ? question[best] : -1;
+    }
+
+    // Applies an SM-2 grade (0-5, 3 and up is a pass) and returns the new due minute.
+    public int review(int q, int grade, int nowMinute) {
+        int slot = slotOf(q);
+        if (slot < 0) {
+            slot = add(q, INITIAL_EASE);
+        }
+        int e = ease[slot];
+        if (grade < 3) {
+            // Lapse: back to the first learning step, and the card gets harder
+            if (reps[slot] > 0) {
+                lapses[slot]++;
+            }
+            reps[slot] = 0;
+            interval[slot] = LEARNING_STEPS[0];
+        } else {
+            int r = reps[slot];
+            if (r < LEARNING_STEPS.length - 1) {
+                interval[slot] = LEARNING_STEPS[r + 1];
+            } else if (r == LEARNING_STEPS.length - 1) {
+                interval[slot] = ONE_DAY;
+            } else if (r == LEARNING_STEPS.length) {
+                interval[slot] = 6 * ONE_DAY;
+            } else {
+                interval[slot] = (int) Math.min(Integer.MAX_VALUE / 2, (long) interval[slot] * e / 1000);
+            }
+            reps[slot] = (short) Math.min(Short.MAX_VALUE, r + 1);
+        }
+        int q5 = 5 - grade;
+        e += 100 - q5 * (80 + q5 * 20);
+        ease[slot] = (short) Math.max(MIN_EASE, Math.min(Short.MAX_VALUE, e));
+        setDue(slot, (int) Math.min(SUSPENDED - 1L, (long) nowMinute + interval[slot]));
+        return due[slot];
+    }
+
+    // Keeps the card but never schedules it again, for questions no longer in the bank.
+    public void suspend(int q) {
+        int slot = slotOf(q);
+        if (slot >= 0) {
+            setDue(slot, SUSPENDED);
+        }
+    }
+
+    public int getReps(int q) {
+        int slot = slotOf(q);
+        return slot < 0 ? 0 : reps[slot];
+    }
+
+    public int getLapses(int q) {
+        int slot = slotOf(q);
+        return slot < 0 ? 0 : lapses[slot];
+    }
+
+    public int getEase(int q) {
+        int slot = slotOf(q);
+        return slot < 0 ? INITIAL_EASE : ease[slot];
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int slot = 0; slot < size; slot++) {
+            writeSlot(out, slot);
+        }
+    }
+
+    // Writes the current state of one card, as a journal record that upsert() replays.
+    public void writeCard(DataOutput out, int q) throws IOException {
+        int slot = slotOf(q);
+        if (slot >= 0) {
+            writeSlot(out, slot);
+        }
+    }
+
+    private void writeSlot(DataOutput out, int slot) throws IOException {
+        out.writeInt(question[slot]);
+        out.writeInt(due[slot]);
+        out.writeInt(interval[slot]);
+        out.writeShort(ease[slot]);
+        out.writeShort(reps[slot]);
+        out.writeShort(lapses[slot]);
+    }
+
+    public static StudyDeck read(DataInput in) throws IOException {
+        int count = in.readInt();
+        StudyDeck deck = new StudyDeck();
+        deck.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            deck.readCard(in, false);
+        }
+        // One O(n) heapify instead of n sift-ups
+        for (int h = deck.size / 2 - 1; h >= 0; h--) {
+            deck.siftDown(h);
+        }
+        return deck;
+    }
+
+    // Replays one record written by writeCard.
+    public void upsert(DataInput in) throws IOException {
+        readCard(in, true);
+    }
+
+    private void readCard(DataInput in, boolean keepHeap) throws IOException {
+        int q = in.readInt();
+        int cardDue = in.readInt();
+        int slot = slotOf(q);
+        if (slot < 0) {
+            slot = keepHeap ? add(q, INITIAL_EASE) : append(q);
+        }
+        interval[slot] = in.readInt();
+        ease[slot] = in.readShort();
+        reps[slot] = in.readShort();
+        lapses[slot] = in.readShort();
+        if (keepHeap) {
+            setDue(slot, cardDue);
+        } else {
+            due[slot] = cardDue;
+        }
+    }
+
+    private int add(int q, int initialEase) {
+        int slot = append(q);
+        ease[slot] = (short) initialEase;
+        due[slot] = 0;
+        siftUp(heapPosition[slot]);
+        return slot;
+    }
+
+    // New slot at the end of the heap array, not yet sifted into place.
+    private int append(int q) {
+        ensureCapacity(size + 1);
+        int slot = size++;
+        question[slot] = q;
+        heap[slot] = slot;
+        heapPosition[slot] = slot;
+        putSlot(q, slot);
+        return slot;
+    }
+
+    private void setDue(int slot, int minute) {
+        int old = due[slot];
+        due[slot] = minute;
+        if (minute < old) {
+            siftUp(heapPosition[slot]);
+        } else {
+            siftDown(heapPosition[slot]);
+        }
+    }
+
+    private void siftUp(int h) {
+        int slot = heap[h];
+        while (h > 0) {
+            int parent = (h - 1) >>> 1;
+            if (due[heap[parent]] <= due[slot]) {
+                break;
+            }
+            place(h, heap[parent]);
+            h = parent;
+        }
+        place(h, slot);
+    }
+
+    private void siftDown(int h) {
+        int slot = heap[h];
+        while (true) {
+            int child = 2 * h + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && due[heap[child + 1]] < due[heap[child]]) {
+                child++;
+            }
+            if (due[heap[child]] >= due[slot]) {
+                break;
+            }
+            place(h, heap[child]);
+            h = child;
+        }
+        place(h, slot);
+    }
+
+    private void place(int h, int slot) {
+        heap[h] = slot;
+        heapPosition[slot] = h;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= question.length) {
+            return;
+        }
+        int grown = Math.max(capacity, question.length * 2);
+        question = Arrays.copyOf(question, grown);
+        due = Arrays.copyOf(due, grown);
+        interval = Arrays.copyOf(interval, grown);
+        ease = Arrays.copyOf(ease, grown);
+        reps = Arrays.copyOf(reps, grown);
+        lapses = Arrays.copyOf(lapses, grown);
+        heap = Arrays.copyOf(heap, grown);
+        heapPosition = Arrays.copyOf(heapPosition, grown);
+        if (grown * 2 > mapKeys.length) {
+            rehash(Integer.highestOneBit(grown * 2 - 1) << 1);
+        }
+    }
+
+    private int slotOf(int q) {
+        int mask = mapKeys.length - 1;
+        for (int i = mix(q) & mask; ; i = (i + 1) & mask) {
+            if (mapKeys[i] == q) return mapSlots[i];
+            if (mapKeys[i] == -1) return -1;
+        }
+    }
+
+    private void putSlot(int q, int slot) {
+        int mask = mapKeys.length - 1;
+        int i = mix(q) & mask;
+        while (mapKeys[i] != -1 && mapKeys[i] != q) {
+            i = (i + 1) & mask;
+        }
+        mapKeys[i] = q;
+        mapSlots[i] = slot;
+    }
+
+    private void rehash(int capacity) {
+        mapKeys = newMap(capacity);
+        mapSlots = new int[capacity];
+        for (int slot = 0; slot < size; slot++) {
+            putSlot(question[slot], slot);
+        }
+    }
+
+    private static int[] newMap(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, -1);
+        return keys;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,205 @@
+package src;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Persistent spaced-repetition decks for study mode, one StudyDeck per player.
+// Like SeenQuestionStore each player has their own files, sharded into 256
+// directories, and only recently active players stay in memory:
+//
+//   <shard>/<player>.deck   every card, 18 bytes each
+//   <shard>/<player>.log    cards changed since, one upsert record per review
+//
+// A review only appends its record to the log, so answering never rewrites a deck
+// of tens of thousands of cards; once the log outgrows half the deck the two are
+// compacted into a new .deck. Loading is one sequential read plus the short log.
+//
+// Cards refer to bank indices, as seen sets do, so a study deck follows the bank
+// it was built on; indices past the end of a smaller bank are suspended.
+public class StudyScheduler {
+
+    public static final int STUDY_SIZE = 20;
+    // Study is untimed; answers are timed only to grade them and this caps the time measured
+    public static final int SECONDS_PER_CARD = 600;
+    // New cards introduced per study session, so a backlog of reviews comes first
+    public static final int NEW_PER_SESSION = 10;
+    // Cards due within this many minutes may be shown early rather than end the session;
+    // short enough that only just-missed cards come back, not ones answered right
+    private static final int LEARN_AHEAD_MINUTES = 5;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MIN_LOG_RECORDS = 256;
+
+    private final Path directory;
+    private final Map<String, ResidentDeck> resident;
+
+    private static class ResidentDeck {
+        final StudyDeck deck;
+        int logRecords;
+
+        ResidentDeck(StudyDeck deck, int logRecords) {
+            this.deck = deck;
+            this.logRecords = logRecords;
+        }
+    }
+
+    public StudyScheduler(Path directory, int maxResidentPlayers) {
+        this.directory = directory;
+        this.resident = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ResidentDeck> eldest) {
+                // Reviews are written through to the log, so eviction never loses data.
+                return size() > maxResidentPlayers;
+            }
+        };
+    }
+
+    // SM-2 grade for a multiple-choice answer: a miss or timeout is 1, a right answer
+    // is 5, 4 or 3 depending on how long the player had to think about it.
+    public static int grade(boolean correct, long responseNanos) {
+        if (!correct) {
+            return 1;
+        }
+        long seconds = responseNanos / 1_000_000_000L;
+        return seconds < 5 ? 5 : seconds < 15 ? 4 : 3;
+    }
+
+    public synchronized void review(String playerId, int question, int grade, long nowMillis) {
+        ResidentDeck entry = load(playerId);
+        entry.deck.review(question, grade, minute(nowMillis));
+        Path log = fileFor(playerId, ".log");
+        try {
+            Files.createDirectories(log.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(log,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 64))) {
+                entry.deck.writeCard(out, question);
+            }
+            entry.logRecords++;
+        } catch (IOException e) {
+            System.err.println("Could not log study review for " + playerId + ": " + e.getMessage());
+        }
+        if (entry.logRecords > Math.max(MIN_LOG_RECORDS, entry.deck.size() / 2)) {
+            compact(playerId, entry);
+        }
+    }
+
+    // Number of cards the player has studied so far.
+    public synchronized int size(String playerId) {
+        return load(playerId).deck.size();
+    }
+
+    // Minute the card is next due, or -1 if the player has not studied it.
+    public synchronized int dueMinute(String playerId, int question) {
+        return load(playerId).deck.dueMinute(question);
+    }
+
+    // Serves one study session: due cards first, earliest first, then up to
+    // NEW_PER_SESSION cards the player has never studied, then missed cards again
+    // ahead of time. The same card is never shown twice in a row.
+    public QuizSession.QuestionPicker picker(String playerId, int bankSize, QuizSampler random) {
+        return new QuizSession.QuestionPicker() {
+            private int newCards;
+
+            @Override
+            public int next(int[] chosen, int count) {
+                int last = count > 0 ? chosen[count - 1] : -1;
+                int now = minute(System.currentTimeMillis());
+                synchronized (StudyScheduler.this) {
+                    StudyDeck deck = load(playerId).deck;
+                    int due;
+                    while ((due = deck.nextDue(now, last)) >= bankSize) {
+                        deck.suspend(due);
+                    }
+                    if (due >= 0) {
+                        return due;
+                    }
+                    if (newCards < NEW_PER_SESSION && deck.size() < bankSize) {
+                        // Random draws rarely hit a studied card unless the deck covers most of the bank
+                        for (int attempt = 0; attempt < 64; attempt++) {
+                            int candidate = random.nextInt(bankSize);
+                            if (!deck.contains(candidate)) {
+                                newCards++;
+                                return candidate;
+                            }
+                        }
+                    }
+                    return deck.nextDue(now + LEARN_AHEAD_MINUTES, last);
+                }
+            }
+
+            @Override
+            public void answered(int question, boolean correct, long responseNanos) {
+                review(playerId, question, grade(correct, responseNanos), System.currentTimeMillis());
+            }
+        };
+    }
+
+    private static int minute(long millis) {
+        return (int) (millis / 60_000);
+    }
+
+    private ResidentDeck load(String playerId) {
+        ResidentDeck entry = resident.get(playerId);
+        if (entry != null) {
+            return entry;
+        }
+        StudyDeck deck = new StudyDeck();
+        Path file = fileFor(playerId, ".deck");
+        if (Files.isRegularFile(file)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+                if (in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Unknown format");
+                }
+                deck = StudyDeck.read(in);
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable study deck for " + playerId + ": " + e.getMessage());
+            }
+        }
+        int logRecords = 0;
+        Path log = fileFor(playerId, ".log");
+        if (Files.isRegularFile(log)) {
+            try {
+                // A torn last record from a crash is cut off so later appends stay aligned
+                long complete = Files.size(log) / StudyDeck.RECORD_BYTES;
+                try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                    channel.truncate(complete * StudyDeck.RECORD_BYTES);
+                }
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+                    for (long i = 0; i < complete; i++) {
+                        deck.upsert(in);
+                        logRecords++;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Ignoring unreadable study log for " + playerId + ": " + e.getMessage());
+            }
+        }
+        entry = new ResidentDeck(deck, logRecords);
+        resident.put(playerId, entry);
+        return entry;
+    }
+
+    // Folds the log into a fresh .deck; the log is removed only once the deck is in place.
+    private void compact(String playerId, ResidentDeck entry) {
+        Path file = fileFor(playerId, ".deck");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(FORMAT_VERSION);
+                entry.deck.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(fileFor(playerId, ".log"));
+            entry.logRecords = 0;
+        } catch (IOException e) {
+            System.err.println("Could not compact study deck for " + playerId + ": " + e.getMessage());
+        }
+    }
+
+    private Path fileFor(String playerId, String suffix) {
+        return directory.resolve(SeenQuestionStore.shard(playerId)).resolve(SeenQuestionStore.fileName(playerId) + suffix);
+    }
+}
@@ -0,0 +1,70 @@
+package src;
+
+import javafx.css.PseudoClass;
+import javafx.scene.Scene;
+import javafx.scene.control.DialogPane;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+// Stylesheet based look of the app. quiz.css holds every rule; a named theme is an
+// extra stylesheet that overrides its colour variables. Stylesheets are parsed once
+// and cached by JavaFX, so state changes during a game only flip pseudo-classes.
+//
+//   -Dbiblequiz.theme=night  ->  /resources/styles/quiz.css + /resources/styles/night.css
+public class Theme {
+
+    public static final PseudoClass CORRECT = PseudoClass.getPseudoClass("correct");
+    public static final PseudoClass WRONG = PseudoClass.getPseudoClass("wrong");
+    public static final PseudoClass TIME_LOW = PseudoClass.getPseudoClass("time-low");
+    public static final PseudoClass TIME_UP = PseudoClass.getPseudoClass("time-up");
+    public static final PseudoClass EXCELLENT = PseudoClass.getPseudoClass("excellent");
+    public static final PseudoClass GOOD = PseudoClass.getPseudoClass("good");
+    public static final PseudoClass POOR = PseudoClass.getPseudoClass("poor");
+
+    private static final String STYLE_DIR = "/resources/styles/";
+    private static final String BASE = "quiz";
+
+    private final List<String> stylesheets;
+
+    private Theme(List<String> stylesheets) {
+        this.stylesheets = List.copyOf(stylesheets);
+    }
+
+    // Falls back to the base theme when the named stylesheet does not exist.
+    public static Theme named(String name) {
+        List<String> stylesheets = new ArrayList<>();
+        stylesheets.add(resource(BASE));
+        if (name != null && !name.isEmpty() && !BASE.equals(name)) {
+            URL extra = Theme.class.getResource(STYLE_DIR + name + ".css");
+            if (extra != null) {
+                stylesheets.add(extra.toExternalForm());
+            } else {
+                System.err.println("Unknown theme '" + name + "', using the default theme");
+            }
+        }
+        return new Theme(stylesheets);
+    }
+
+    public static Theme fromSystemProperty() {
+        return named(System.getProperty("biblequiz.theme"));
+    }
+
+    public void apply(Scene scene) {
+        scene.getStylesheets().setAll(stylesheets);
+    }
+
+    // Dialogs get their own scene, so they need the stylesheets separately.
+    public void apply(DialogPane dialogPane) {
+        dialogPane.getStylesheets().setAll(stylesheets);
+    }
+
+    private static String resource(String name) {
+        URL url = Theme.class.getResource(STYLE_DIR + name + ".css");
+        if (url == null) {
+            throw new IllegalStateException("Missing stylesheet " + STYLE_DIR + name + ".css");
+        }
+        return url.toExternalForm();
+    }
+}